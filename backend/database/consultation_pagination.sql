@@ -0,0 +1,9 @@
+-- Pagination par curseur et streaming des consultations (GET /consultations)
+-- Clé de tri (date_consultation, id) décroissante : pas d'OFFSET, parcours d'index ordonné pour le streaming
+
+CREATE INDEX IF NOT EXISTS idx_consultations_date_id ON consultations(date_consultation DESC, id DESC);
+
+-- Historique d'un patient (export NDJSON) lu dans l'ordre de l'index, sans tri
+CREATE INDEX IF NOT EXISTS idx_consultations_dossier_date_id ON consultations(dossier_medical_id, date_consultation DESC, id DESC);
+
+ANALYZE consultations;
@@ -14,7 +14,8 @@ CREATE TABLE IF NOT EXISTS professionnels (
     derniere_connexion TIMESTAMP,
     actif BOOLEAN NOT NULL DEFAULT TRUE,
     two_fa_secret VARCHAR(255),
-    two_fa_enabled BOOLEAN NOT NULL DEFAULT FALSE
+    two_fa_enabled BOOLEAN NOT NULL DEFAULT FALSE,
+    token_generation BIGINT NOT NULL DEFAULT 0
 );
 CREATE INDEX IF NOT EXISTS idx_email ON professionnels(email);
 CREATE INDEX IF NOT EXISTS idx_rpps ON professionnels(numero_rpps);
@@ -35,12 +36,16 @@ CREATE TABLE IF NOT EXISTS patients (
     numero_nfc VARCHAR(100) UNIQUE,
     date_creation TIMESTAMP NOT NULL,
     derniere_consultation TIMESTAMP,
-    actif BOOLEAN NOT NULL DEFAULT TRUE
+    actif BOOLEAN NOT NULL DEFAULT TRUE,
+    search_text TEXT GENERATED ALWAYS AS (lower(nom || ' ' || prenom || ' ' || numero_dossier || ' ' || telephone || ' ' || coalesce(email, ''))) STORED
 );
 CREATE INDEX IF NOT EXISTS idx_numero_dossier ON patients(numero_dossier);
 CREATE INDEX IF NOT EXISTS idx_nss ON patients(numero_securite_sociale);
 CREATE INDEX IF NOT EXISTS idx_nfc ON patients(numero_nfc);
 CREATE INDEX IF NOT EXISTS idx_nom_prenom ON patients(nom, prenom);
+CREATE INDEX IF NOT EXISTS idx_patients_date_creation_id ON patients(date_creation DESC, id DESC);
+CREATE EXTENSION IF NOT EXISTS pg_trgm;
+CREATE INDEX IF NOT EXISTS idx_patients_search_trgm ON patients USING gin (search_text gin_trgm_ops) WHERE actif = true;
 
 -- Table des dossiers médicaux
 CREATE TABLE IF NOT EXISTS dossiers_medicaux (
@@ -88,6 +93,8 @@ CREATE TABLE IF NOT EXISTS consultations (
 CREATE INDEX IF NOT EXISTS idx_dossier_medical_id ON consultations(dossier_medical_id);
 CREATE INDEX IF NOT EXISTS idx_professionnel_id ON consultations(professionnel_id);
 CREATE INDEX IF NOT EXISTS idx_date_consultation ON consultations(date_consultation);
+CREATE INDEX IF NOT EXISTS idx_consultations_date_id ON consultations(date_consultation DESC, id DESC);
+CREATE INDEX IF NOT EXISTS idx_consultations_dossier_date_id ON consultations(dossier_medical_id, date_consultation DESC, id DESC);
 CREATE INDEX IF NOT EXISTS idx_blockchain_hash ON consultations(blockchain_txn_hash);
 
 -- Insertion de professionnels de santé sénégalais
@@ -0,0 +1,6 @@
+-- Pagination par curseur des patients (GET /patients/cursor, /patients/search/cursor)
+-- Clé de tri (date_creation, id) décroissante : chaque page reprend après le dernier élément, sans OFFSET
+
+CREATE INDEX IF NOT EXISTS idx_patients_date_creation_id ON patients(date_creation DESC, id DESC);
+
+ANALYZE patients;
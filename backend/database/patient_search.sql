@@ -0,0 +1,15 @@
+-- Recherche de patients indexée en trigrammes (pg_trgm)
+-- Sert PatientRepository.searchPatients : search_text LIKE '%terme%' sur une seule colonne normalisée
+
+CREATE EXTENSION IF NOT EXISTS pg_trgm;
+
+-- Colonne de recherche calculée (également créée par Hibernate en ddl-auto update)
+ALTER TABLE patients ADD COLUMN IF NOT EXISTS search_text TEXT
+    GENERATED ALWAYS AS (lower(nom || ' ' || prenom || ' ' || numero_dossier || ' ' || telephone || ' ' || coalesce(email, ''))) STORED;
+
+-- Index partiel : la recherche ne porte que sur les patients actifs
+CREATE INDEX IF NOT EXISTS idx_patients_search_trgm ON patients USING gin (search_text gin_trgm_ops) WHERE actif = true;
+
+ANALYZE patients;
+
+COMMENT ON COLUMN patients.search_text IS 'Nom, prénom, numéro de dossier, téléphone et email normalisés pour la recherche';
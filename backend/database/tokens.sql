@@ -1,7 +1,8 @@
 -- Table pour stocker les tokens JWT
 CREATE TABLE IF NOT EXISTS tokens (
     id BIGSERIAL PRIMARY KEY,
-    token_value VARCHAR(500) NOT NULL UNIQUE,
+    token_value VARCHAR(1000) NOT NULL,
+    token_hash CHAR(64) NOT NULL,
     user_email VARCHAR(255) NOT NULL,
     created_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP,
     expires_at TIMESTAMP NOT NULL,
@@ -13,17 +14,29 @@ CREATE TABLE IF NOT EXISTS tokens (
 
 -- Index pour améliorer les performances
 CREATE INDEX IF NOT EXISTS idx_tokens_user_email ON tokens(user_email);
-CREATE INDEX IF NOT EXISTS idx_tokens_token_value ON tokens(token_value);
+CREATE UNIQUE INDEX IF NOT EXISTS idx_tokens_token_hash ON tokens(token_hash);
 CREATE INDEX IF NOT EXISTS idx_tokens_expires_at ON tokens(expires_at);
 CREATE INDEX IF NOT EXISTS idx_tokens_valid ON tokens(user_email, revoked, expired, expires_at);
 
 -- Commentaires
 COMMENT ON TABLE tokens IS 'Table pour stocker les tokens JWT avec validation en base de données';
 COMMENT ON COLUMN tokens.token_value IS 'Valeur du token JWT';
+COMMENT ON COLUMN tokens.token_hash IS 'Empreinte SHA-256 (hex) du token, utilisée pour la recherche';
 COMMENT ON COLUMN tokens.user_email IS 'Email de l''utilisateur propriétaire du token';
 COMMENT ON COLUMN tokens.created_at IS 'Date de création du token';
 COMMENT ON COLUMN tokens.expires_at IS 'Date d''expiration du token';
 COMMENT ON COLUMN tokens.revoked IS 'Indique si le token a été révoqué';
 COMMENT ON COLUMN tokens.expired IS 'Indique si le token a expiré';
 COMMENT ON COLUMN tokens.user_agent IS 'User-Agent du navigateur qui a généré le token';
-COMMENT ON COLUMN tokens.ip_address IS 'Adresse IP qui a généré le token'; 
\ No newline at end of file
+COMMENT ON COLUMN tokens.ip_address IS 'Adresse IP qui a généré le token'; 
+-- Table des identifiants (jti) révoqués pour le mode de révocation stateless
+CREATE TABLE IF NOT EXISTS revoked_tokens (
+    jti VARCHAR(36) PRIMARY KEY,
+    user_email VARCHAR(255) NOT NULL,
+    expires_at TIMESTAMP NOT NULL,
+    revoked_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP
+);
+
+CREATE INDEX IF NOT EXISTS idx_revoked_tokens_expires_at ON revoked_tokens(expires_at);
+
+COMMENT ON TABLE revoked_tokens IS 'Identifiants de tokens révoqués, conservés jusqu''à leur expiration (mode stateless)';
@@ -0,0 +1,36 @@
+-- Migration : recherche des tokens par empreinte SHA-256 au lieu de la valeur JWT complète
+-- À exécuter avant le démarrage de la version qui lit tokens.token_hash
+
+ALTER TABLE tokens ADD COLUMN IF NOT EXISTS token_hash CHAR(64);
+
+-- Calcul de l'empreinte des tokens existants (même encodage hex que HashUtil.generateSHA256Hash)
+UPDATE tokens
+SET token_hash = encode(sha256(convert_to(token_value, 'UTF8')), 'hex')
+WHERE token_hash IS NULL;
+
+ALTER TABLE tokens ALTER COLUMN token_hash SET NOT NULL;
+
+CREATE UNIQUE INDEX IF NOT EXISTS idx_tokens_token_hash ON tokens(token_hash);
+
+-- L'ancienne contrainte d'unicité et l'index sur la valeur complète ne servent plus
+DO $$
+DECLARE
+    constraint_name TEXT;
+BEGIN
+    FOR constraint_name IN
+        SELECT con.conname
+        FROM pg_constraint con
+        JOIN pg_attribute att ON att.attrelid = con.conrelid AND att.attnum = ANY (con.conkey)
+        WHERE con.conrelid = 'tokens'::regclass
+          AND con.contype = 'u'
+          AND att.attname = 'token_value'
+    LOOP
+        EXECUTE format('ALTER TABLE tokens DROP CONSTRAINT %I', constraint_name);
+    END LOOP;
+END $$;
+
+DROP INDEX IF EXISTS idx_tokens_token_value;
+
+ALTER TABLE tokens ALTER COLUMN token_value TYPE VARCHAR(1000);
+
+COMMENT ON COLUMN tokens.token_hash IS 'Empreinte SHA-256 (hex) du token, utilisée pour la recherche';
@@ -0,0 +1,102 @@
+-- Disposition optionnelle de la table tokens partitionnée par jour d'expiration
+-- La purge des tokens expirés devient un DROP de partition (spring.security.token-purge.partitioned=true)
+-- Le backend crée les partitions des 7 prochains jours à chaque purge : JWT_EXPIRATION doit rester inférieur à 7 jours.
+
+-- 1. Mise de côté de la table existante
+-- Les index gardent leur nom lors d'un RENAME : ils sont renommés pour libérer les noms idx_tokens_*
+ALTER TABLE IF EXISTS tokens RENAME TO tokens_legacy;
+
+DO $$
+DECLARE
+    idx RECORD;
+BEGIN
+    IF to_regclass('tokens_legacy') IS NOT NULL THEN
+        FOR idx IN
+            SELECT c.relname
+            FROM pg_index i
+            JOIN pg_class c ON c.oid = i.indexrelid
+            WHERE i.indrelid = 'tokens_legacy'::regclass
+        LOOP
+            EXECUTE format('ALTER INDEX %I RENAME TO %I', idx.relname, idx.relname || '_legacy');
+        END LOOP;
+    END IF;
+END $$;
+
+-- 2. Table partitionnée (la clé de partition doit faire partie de la clé primaire)
+CREATE TABLE tokens (
+    id BIGSERIAL,
+    token_value VARCHAR(1000) NOT NULL,
+    token_hash CHAR(64) NOT NULL,
+    user_email VARCHAR(255) NOT NULL,
+    created_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    expires_at TIMESTAMP NOT NULL,
+    revoked BOOLEAN NOT NULL DEFAULT FALSE,
+    expired BOOLEAN NOT NULL DEFAULT FALSE,
+    user_agent VARCHAR(500),
+    ip_address VARCHAR(45),
+    PRIMARY KEY (id, expires_at)
+) PARTITION BY RANGE (expires_at);
+
+-- Index créés sur la table parente (propagés à chaque partition)
+-- Un index unique doit inclure la clé de partition : l'unicité du hash reste garantie par SHA-256
+CREATE INDEX idx_tokens_token_hash ON tokens(token_hash);
+CREATE INDEX idx_tokens_user_email ON tokens(user_email);
+CREATE INDEX idx_tokens_valid ON tokens(user_email, revoked, expired, expires_at);
+
+-- 3. Gestion des partitions journalières (tokens_pAAAAMMJJ)
+CREATE OR REPLACE FUNCTION tokens_create_partitions(days_ahead INTEGER) RETURNS INTEGER AS $$
+DECLARE
+    jour DATE;
+    nom TEXT;
+    created INTEGER := 0;
+BEGIN
+    FOR i IN -1..days_ahead LOOP
+        jour := CURRENT_DATE + i;
+        nom := 'tokens_p' || to_char(jour, 'YYYYMMDD');
+        IF to_regclass(nom) IS NULL THEN
+            EXECUTE format('CREATE TABLE %I PARTITION OF tokens FOR VALUES FROM (%L) TO (%L)', nom, jour, jour + 1);
+            created := created + 1;
+        END IF;
+    END LOOP;
+    RETURN created;
+END;
+$$ LANGUAGE plpgsql;
+
+CREATE OR REPLACE FUNCTION tokens_drop_expired_partitions(cutoff TIMESTAMP) RETURNS INTEGER AS $$
+DECLARE
+    partition RECORD;
+    dropped INTEGER := 0;
+BEGIN
+    FOR partition IN
+        SELECT c.relname
+        FROM pg_inherits i
+        JOIN pg_class c ON c.oid = i.inhrelid
+        WHERE i.inhparent = 'tokens'::regclass
+          AND c.relname ~ '^tokens_p[0-9]{8}$'
+    LOOP
+        -- Tous les tokens de la partition expirent avant sa borne supérieure
+        IF (to_date(substring(partition.relname FROM 9), 'YYYYMMDD') + 1)::TIMESTAMP <= cutoff THEN
+            EXECUTE format('DROP TABLE %I', partition.relname);
+            dropped := dropped + 1;
+        END IF;
+    END LOOP;
+    RETURN dropped;
+END;
+$$ LANGUAGE plpgsql;
+
+SELECT tokens_create_partitions(7);
+
+-- 4. Reprise des tokens encore utiles puis suppression de l'ancienne table
+DO $$
+BEGIN
+    IF to_regclass('tokens_legacy') IS NOT NULL THEN
+        INSERT INTO tokens (id, token_value, token_hash, user_email, created_at, expires_at, revoked, expired, user_agent, ip_address)
+        SELECT id, token_value, token_hash, user_email, created_at, expires_at, revoked, expired, user_agent, ip_address
+        FROM tokens_legacy
+        WHERE expires_at >= CURRENT_DATE - 1;
+        PERFORM setval(pg_get_serial_sequence('tokens', 'id'), COALESCE((SELECT MAX(id) FROM tokens_legacy), 1));
+        DROP TABLE tokens_legacy;
+    END IF;
+END $$;
+
+COMMENT ON TABLE tokens IS 'Table des tokens JWT partitionnée par jour d''expiration';
@@ -1,14 +1,19 @@
 package com.nfc4care.controller;
 
 import com.nfc4care.dto.ConsultationDto;
+import com.nfc4care.dto.ConsultationTimelineDto;
+import com.nfc4care.dto.PagedResponse;
 import com.nfc4care.entity.Consultation;
 import com.nfc4care.service.ConsultationService;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import java.util.List;
 import java.util.Optional;
@@ -22,32 +27,104 @@ public class ConsultationController {
     
     private final ConsultationService consultationService;
     
-    @GetMapping
+    /**
+     * Consultations d'un patient ; sans patient, la liste complète est servie par GET /consultations
+     * ou /consultations/cursor
+     */
+    @GetMapping(params = "patientId")
     @PreAuthorize("hasRole('MEDECIN')")
-    public ResponseEntity<List<ConsultationDto>> getAllConsultations(@RequestParam(required = false) String patientId) {
+    public ResponseEntity<List<ConsultationDto>> getConsultationsByPatient(@RequestParam(required = false) Long patientId) {
+        if (patientId == null) {
+            log.warn("❌ Paramètre patientId vide");
+            return ResponseEntity.badRequest().build();
+        }
         log.info("Récupération des consultations - patientId: {}", patientId);
         
+        List<ConsultationDto> consultationDtos = consultationService.getConsultationsByPatientId(patientId)
+            .stream()
+            .map(consultationService::toDto)
+            .collect(Collectors.toList());
+        
+        log.info("✅ {} consultations récupérées", consultationDtos.size());
+        return ResponseEntity.ok(consultationDtos);
+    }
+    
+    /**
+     * Toutes les consultations, paginées par curseur
+     */
+    @GetMapping("/cursor")
+    @PreAuthorize("hasRole('MEDECIN')")
+    public ResponseEntity<PagedResponse<ConsultationDto>> getAllConsultations(
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "50") int size) {
+        log.info("Récupération des consultations par curseur - size: {}", size);
+        
         try {
-            List<Consultation> consultations;
-            if (patientId != null && !patientId.trim().isEmpty()) {
-                consultations = consultationService.getConsultationsByPatientId(Long.parseLong(patientId));
-            } else {
-                consultations = consultationService.getAllConsultations();
-            }
-            
-            List<ConsultationDto> consultationDtos = consultations.stream()
-                .map(consultationService::toDto)
-                .collect(Collectors.toList());
-            
-            log.info("✅ {} consultations récupérées", consultationDtos.size());
-            log.info("consultationDtos: {}", consultationDtos);
-            return ResponseEntity.ok(consultationDtos);
+            PagedResponse<ConsultationDto> consultations = consultationService.getConsultationsByCursor(cursor, Math.min(Math.max(size, 1), 500));
+            log.info("✅ {} consultations récupérées (suite: {})", consultations.getContent().size(), consultations.isHasNext());
+            return ResponseEntity.ok(consultations);
+        } catch (IllegalArgumentException e) {
+            log.warn("❌ Curseur de pagination invalide: {}", cursor);
+            return ResponseEntity.badRequest().build();
         } catch (Exception e) {
             log.error("❌ Erreur lors de la récupération des consultations", e);
             return ResponseEntity.internalServerError().build();
         }
     }
     
+    /**
+     * Toutes les consultations en tableau JSON (format historique de GET /consultations),
+     * écrit au fil de l'eau depuis un curseur serveur ; les clients paginent via /consultations/cursor
+     */
+    @GetMapping(params = "!patientId")
+    @PreAuthorize("hasRole('MEDECIN')")
+    public ResponseEntity<StreamingResponseBody> streamAllConsultations() {
+        log.info("Récupération de toutes les consultations en streaming");
+        StreamingResponseBody body = consultationService::streamAllConsultations;
+        return ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_JSON)
+                .body(body);
+    }
+    
+    /**
+     * Frise des consultations : résumés et tables annexes patients/professionnels, paginée par curseur
+     */
+    @GetMapping("/timeline")
+    @PreAuthorize("hasRole('MEDECIN')")
+    public ResponseEntity<ConsultationTimelineDto> getTimeline(
+            @RequestParam(required = false) Long patientId,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "100") int size) {
+        log.info("Récupération de la frise des consultations - patientId: {}, size: {}", patientId, size);
+        
+        try {
+            ConsultationTimelineDto timeline = consultationService.getTimeline(patientId, cursor, Math.min(Math.max(size, 1), 500));
+            log.info("✅ {} consultations dans la frise ({} patients, {} professionnels)",
+                timeline.getConsultations().size(), timeline.getPatients().size(), timeline.getProfessionnels().size());
+            return ResponseEntity.ok(timeline);
+        } catch (IllegalArgumentException e) {
+            log.warn("❌ Curseur de pagination invalide: {}", cursor);
+            return ResponseEntity.badRequest().build();
+        } catch (Exception e) {
+            log.error("❌ Erreur lors de la récupération de la frise des consultations", e);
+            return ResponseEntity.internalServerError().build();
+        }
+    }
+    
+    /**
+     * Historique complet d'un patient en NDJSON, écrit au fil de l'eau depuis un curseur serveur
+     */
+    @GetMapping(value = "/patient/{patientId}/export", produces = "application/x-ndjson")
+    @PreAuthorize("hasRole('MEDECIN')")
+    public ResponseEntity<StreamingResponseBody> exportPatientConsultations(@PathVariable Long patientId) {
+        log.info("Export NDJSON des consultations du patient: {}", patientId);
+        StreamingResponseBody body = outputStream -> consultationService.streamPatientConsultationsAsNdjson(patientId, outputStream);
+        return ResponseEntity.ok()
+                .contentType(MediaType.parseMediaType("application/x-ndjson"))
+                .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"consultations_patient_" + patientId + ".ndjson\"")
+                .body(body);
+    }
+    
     @GetMapping("/{id}")
     @PreAuthorize("hasRole('MEDECIN')")
     public ResponseEntity<ConsultationDto> getConsultationById(@PathVariable Long id) {
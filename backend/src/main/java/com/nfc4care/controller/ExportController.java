@@ -0,0 +1,88 @@
+package com.nfc4care.controller;
+
+import com.nfc4care.dto.ApiResponse;
+import com.nfc4care.dto.ExportFormat;
+import com.nfc4care.dto.ExportJobDto;
+import com.nfc4care.exception.ExportQuotaExceededException;
+import com.nfc4care.exception.ResourceNotFoundException;
+import com.nfc4care.service.ExportJobService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.core.io.FileSystemResource;
+import org.springframework.core.io.Resource;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.web.bind.annotation.*;
+
+/**
+ * Exports asynchrones : soumission, suivi et téléchargement
+ */
+@RestController
+@RequestMapping("/exports")
+@RequiredArgsConstructor
+@Slf4j
+public class ExportController {
+
+    private final ExportJobService exportJobService;
+
+    @PostMapping
+    @PreAuthorize("hasRole('MEDECIN')")
+    public ResponseEntity<ApiResponse<ExportJobDto>> submitExport(
+            @RequestParam Long patientId,
+            @RequestParam(defaultValue = "pdf") String format) {
+        String email = getCurrentUserEmail();
+        log.info("Soumission d'un export {} du patient {} par {}", format, patientId, email);
+        try {
+            ExportJobDto job = exportJobService.submit(email, patientId, ExportFormat.parse(format));
+            return ResponseEntity.status(HttpStatus.ACCEPTED).body(ApiResponse.success(job));
+        } catch (ResourceNotFoundException e) {
+            return ResponseEntity.status(HttpStatus.NOT_FOUND)
+                    .body(ApiResponse.error("PATIENT_NOT_FOUND", e.getMessage()));
+        } catch (ExportQuotaExceededException e) {
+            log.warn("❌ Export refusé pour {}: {}", email, e.getMessage());
+            return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS)
+                    .body(ApiResponse.error("EXPORT_QUOTA_EXCEEDED", e.getMessage()));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest()
+                    .body(ApiResponse.error("INVALID_PARAMETER", e.getMessage()));
+        }
+    }
+
+    @GetMapping("/{jobId}")
+    @PreAuthorize("hasRole('MEDECIN')")
+    public ResponseEntity<ApiResponse<ExportJobDto>> getExport(@PathVariable String jobId) {
+        return exportJobService.getJob(getCurrentUserEmail(), jobId)
+                .map(job -> ResponseEntity.ok(ApiResponse.success(job)))
+                .orElseGet(() -> ResponseEntity.status(HttpStatus.NOT_FOUND)
+                        .body(ApiResponse.error("EXPORT_NOT_FOUND", "Export " + jobId + " introuvable ou expiré")));
+    }
+
+    @GetMapping("/{jobId}/download")
+    @PreAuthorize("hasRole('MEDECIN')")
+    public ResponseEntity<Resource> downloadExport(@PathVariable String jobId) {
+        String email = getCurrentUserEmail();
+        log.info("Téléchargement de l'export {} par {}", jobId, email);
+        if (exportJobService.getJob(email, jobId).isEmpty()) {
+            return ResponseEntity.notFound().build();
+        }
+        return exportJobService.getArtifact(email, jobId)
+                .<ResponseEntity<Resource>>map(artifact -> {
+                    HttpHeaders headers = new HttpHeaders();
+                    headers.setContentType(MediaType.parseMediaType(artifact.format().getContentType()));
+                    headers.setContentDispositionFormData("attachment", artifact.fileName());
+                    return ResponseEntity.ok()
+                            .headers(headers)
+                            .body(new FileSystemResource(artifact.file()));
+                })
+                // Export pas encore prêt ou en échec
+                .orElseGet(() -> ResponseEntity.status(HttpStatus.CONFLICT).build());
+    }
+
+    private String getCurrentUserEmail() {
+        return SecurityContextHolder.getContext().getAuthentication().getName();
+    }
+}
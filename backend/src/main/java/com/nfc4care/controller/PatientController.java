@@ -1,54 +1,115 @@
 package com.nfc4care.controller;
 
 import com.nfc4care.dto.ApiResponse;
+import com.nfc4care.dto.ExportFormat;
+import com.nfc4care.dto.NfcScanResult;
 import com.nfc4care.dto.PagedResponse;
+import com.nfc4care.dto.PatientCardDto;
 import com.nfc4care.dto.PatientDto;
+import com.nfc4care.dto.TotalMode;
+import com.nfc4care.entity.DossierMedical;
 import com.nfc4care.entity.Patient;
 import com.nfc4care.service.DossierMedicalService;
+import com.nfc4care.service.ExportCache;
 import com.nfc4care.service.ExportService;
+import com.nfc4care.service.PatientCardService;
 import com.nfc4care.service.PatientService;
+import jakarta.servlet.http.HttpServletResponse;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
-import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.ContentDisposition;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
-import java.io.ByteArrayOutputStream;
+import java.io.BufferedOutputStream;
 import java.io.IOException;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.time.LocalDate;
+import java.time.temporal.ChronoUnit;
 import java.util.List;
 import java.util.Optional;
 
-import com.itextpdf.text.DocumentException;
-
 @RestController
 @RequestMapping("/patients")
 @RequiredArgsConstructor
 @Slf4j
 public class PatientController {
 
+    private static final int EXPORT_BUFFER_SIZE = 64 * 1024;
+    private static final long COHORT_MAX_DAYS = 366;
+
     private final PatientService patientService;
     private final ExportService exportService;
     private final DossierMedicalService dossierMedicalService;
+    private final PatientCardService patientCardService;
+    private final ExportCache exportCache;
     
     @GetMapping
     @PreAuthorize("hasRole('MEDECIN')")
     public ResponseEntity<ApiResponse<PagedResponse<Patient>>> getAllPatients(
             @RequestParam(defaultValue = "0") int page,
-            @RequestParam(defaultValue = "20") int size) {
-        log.info("Récupération des patients - page: {}, size: {}", page, size);
+            @RequestParam(defaultValue = "20") int size,
+            @RequestParam(defaultValue = "exact") String total) {
+        log.info("Récupération des patients - page: {}, size: {}, total: {}", page, size, total);
         try {
             Pageable pageable = PageRequest.of(page, size);
-            Page<Patient> patients = patientService.getAllPatientsPaginated(pageable);
-            log.info("✅ {} patients récupérés (page {}/{})",
-                patients.getContent().size(), patients.getNumber() + 1, patients.getTotalPages());
-            return ResponseEntity.ok(ApiResponse.success(PagedResponse.of(patients)));
+            PagedResponse<Patient> patients = patientService.getAllPatientsPaginated(pageable, TotalMode.parse(total));
+            log.info("✅ {} patients récupérés (page {}, suite: {})",
+                patients.getContent().size(), page + 1, patients.isHasNext());
+            return ResponseEntity.ok(ApiResponse.success(patients));
+        } catch (IllegalArgumentException e) {
+            log.warn("❌ Paramètres de pagination invalides: {}", e.getMessage());
+            return ResponseEntity.badRequest()
+                    .body(ApiResponse.error("INVALID_PARAMETER", e.getMessage()));
+        } catch (Exception e) {
+            log.error("❌ Erreur lors de la récupération des patients", e);
+            return ResponseEntity.internalServerError()
+                    .body(ApiResponse.error("ERROR", e.getMessage()));
+        }
+    }
+    
+    /**
+     * Total exact (mis en cache), demandé par le client en parallèle d'une page sans total
+     */
+    @GetMapping("/count")
+    @PreAuthorize("hasRole('MEDECIN')")
+    public ResponseEntity<ApiResponse<Long>> countPatients(@RequestParam(required = false) String q) {
+        log.info("Comptage des patients pour le terme: {}", q);
+        try {
+            return ResponseEntity.ok(ApiResponse.success(patientService.countPatients(q)));
+        } catch (Exception e) {
+            log.error("❌ Erreur lors du comptage des patients", e);
+            return ResponseEntity.internalServerError()
+                    .body(ApiResponse.error("ERROR", e.getMessage()));
+        }
+    }
+    
+    @GetMapping("/cursor")
+    @PreAuthorize("hasRole('MEDECIN')")
+    public ResponseEntity<ApiResponse<PagedResponse<Patient>>> getPatientsByCursor(
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "20") int size,
+            @RequestParam(defaultValue = "false") boolean includeTotal) {
+        log.info("Récupération des patients par curseur - size: {}, total: {}", size, includeTotal);
+        try {
+            PagedResponse<Patient> patients = patientService.getPatientsByCursor(cursor, Math.min(Math.max(size, 1), 500), includeTotal);
+            log.info("✅ {} patients récupérés (suite: {})", patients.getContent().size(), patients.isHasNext());
+            return ResponseEntity.ok(ApiResponse.success(patients));
+        } catch (IllegalArgumentException e) {
+            log.warn("❌ Curseur de pagination invalide: {}", cursor);
+            return ResponseEntity.badRequest()
+                    .body(ApiResponse.error("INVALID_CURSOR", e.getMessage()));
         } catch (Exception e) {
             log.error("❌ Erreur lors de la récupération des patients", e);
             return ResponseEntity.internalServerError()
@@ -75,6 +136,34 @@ public class PatientController {
         }
     }
     
+    /**
+     * Fiche patient complète (patient, dossier médical, dernières consultations) en une seule réponse
+     */
+    @GetMapping("/{id}/card")
+    @PreAuthorize("hasRole('MEDECIN')")
+    public ResponseEntity<ApiResponse<PatientCardDto>> getPatientCard(
+            @PathVariable Long id,
+            @RequestParam(defaultValue = "5") int consultations) {
+        log.info("Récupération de la fiche du patient {} ({} consultations)", id, consultations);
+        try {
+            int limit = Math.min(Math.max(consultations, 1), 50);
+            return patientCardService.getPatientCard(id, limit)
+                    .map(card -> {
+                        log.info("✅ Fiche du patient {} construite ({} consultations)", id, card.getConsultations().size());
+                        return ResponseEntity.ok(ApiResponse.success(card));
+                    })
+                    .orElseGet(() -> {
+                        log.info("❌ Patient non trouvé");
+                        return ResponseEntity.status(HttpStatus.NOT_FOUND)
+                                .body(ApiResponse.error("PATIENT_NOT_FOUND", "Patient avec l'ID " + id + " non trouvé"));
+                    });
+        } catch (Exception e) {
+            log.error("❌ Erreur lors de la récupération de la fiche du patient", e);
+            return ResponseEntity.internalServerError()
+                    .body(ApiResponse.error("ERROR", e.getMessage()));
+        }
+    }
+    
     @GetMapping("/nfc/{numeroNFC}")
     @PreAuthorize("hasRole('MEDECIN')")
     public ResponseEntity<Patient> getPatientByNFC(@PathVariable String numeroNFC) {
@@ -94,18 +183,68 @@ public class PatientController {
         }
     }
     
+    /**
+     * Scan NFC : résumé du patient et identifiant du dossier en une seule réponse (en cache)
+     */
+    @GetMapping("/nfc/{numeroNFC}/scan")
+    @PreAuthorize("hasRole('MEDECIN')")
+    public ResponseEntity<ApiResponse<NfcScanResult>> scanNFC(@PathVariable String numeroNFC) {
+        log.info("Scan NFC: {}", numeroNFC);
+        try {
+            return patientService.getScanResult(numeroNFC)
+                    .map(result -> ResponseEntity.ok(ApiResponse.success(result)))
+                    .orElseGet(() -> {
+                        log.info("❌ Aucun patient pour la carte NFC: {}", numeroNFC);
+                        return ResponseEntity.status(HttpStatus.NOT_FOUND)
+                                .body(ApiResponse.error("PATIENT_NOT_FOUND", "Aucun patient associé à cette carte NFC"));
+                    });
+        } catch (Exception e) {
+            log.error("❌ Erreur lors du scan NFC", e);
+            return ResponseEntity.internalServerError()
+                    .body(ApiResponse.error("ERROR", e.getMessage()));
+        }
+    }
+    
     @GetMapping("/search")
     @PreAuthorize("hasRole('MEDECIN')")
     public ResponseEntity<ApiResponse<PagedResponse<Patient>>> searchPatients(
             @RequestParam String q,
             @RequestParam(defaultValue = "0") int page,
-            @RequestParam(defaultValue = "20") int size) {
-        log.info("Recherche de patients avec le terme: {}, page: {}, size: {}", q, page, size);
+            @RequestParam(defaultValue = "20") int size,
+            @RequestParam(defaultValue = "exact") String total) {
+        log.info("Recherche de patients avec le terme: {}, page: {}, size: {}, total: {}", q, page, size, total);
         try {
             Pageable pageable = PageRequest.of(page, size);
-            Page<Patient> patients = patientService.searchPatients(q, pageable);
+            PagedResponse<Patient> patients = patientService.searchPatients(q, pageable, TotalMode.parse(total));
             log.info("✅ {} patients trouvés pour la recherche: {}", patients.getContent().size(), q);
-            return ResponseEntity.ok(ApiResponse.success(PagedResponse.of(patients)));
+            return ResponseEntity.ok(ApiResponse.success(patients));
+        } catch (IllegalArgumentException e) {
+            log.warn("❌ Paramètres de recherche invalides: {}", e.getMessage());
+            return ResponseEntity.badRequest()
+                    .body(ApiResponse.error("INVALID_PARAMETER", e.getMessage()));
+        } catch (Exception e) {
+            log.error("❌ Erreur lors de la recherche de patients", e);
+            return ResponseEntity.internalServerError()
+                    .body(ApiResponse.error("SEARCH_ERROR", e.getMessage()));
+        }
+    }
+    
+    @GetMapping("/search/cursor")
+    @PreAuthorize("hasRole('MEDECIN')")
+    public ResponseEntity<ApiResponse<PagedResponse<Patient>>> searchPatientsByCursor(
+            @RequestParam String q,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "20") int size,
+            @RequestParam(defaultValue = "false") boolean includeTotal) {
+        log.info("Recherche de patients par curseur avec le terme: {}, size: {}", q, size);
+        try {
+            PagedResponse<Patient> patients = patientService.searchPatientsByCursor(q, cursor, Math.min(Math.max(size, 1), 500), includeTotal);
+            log.info("✅ {} patients trouvés pour la recherche: {}", patients.getContent().size(), q);
+            return ResponseEntity.ok(ApiResponse.success(patients));
+        } catch (IllegalArgumentException e) {
+            log.warn("❌ Curseur de pagination invalide: {}", cursor);
+            return ResponseEntity.badRequest()
+                    .body(ApiResponse.error("INVALID_CURSOR", e.getMessage()));
         } catch (Exception e) {
             log.error("❌ Erreur lors de la recherche de patients", e);
             return ResponseEntity.internalServerError()
@@ -157,51 +296,98 @@ public class PatientController {
 
     @GetMapping("/{id}/export/pdf")
     @PreAuthorize("hasRole('MEDECIN')")
-    public ResponseEntity<byte[]> exportPatientToPDF(@PathVariable Long id) {
+    public void exportPatientToPDF(@PathVariable Long id, HttpServletResponse response) throws IOException {
         log.info("Export PDF du patient avec l'ID: {}", id);
+        Patient patient = patientService.getPatientById(id)
+                .orElseThrow(() -> new com.nfc4care.exception.ResourceNotFoundException("Patient non trouvé"));
+        var dossier = dossierMedicalService.getByPatientId(id).orElse(null);
         try {
-            Patient patient = patientService.getPatientById(id)
-                    .orElseThrow(() -> new com.nfc4care.exception.ResourceNotFoundException("Patient non trouvé"));
-
-            var dossier = dossierMedicalService.getByPatientId(id).orElse(null);
-            ByteArrayOutputStream pdfStream = exportService.exportToPDF(patient, dossier);
-
-            HttpHeaders headers = new HttpHeaders();
-            headers.setContentType(MediaType.APPLICATION_PDF);
-            headers.setContentDispositionFormData("attachment",
-                    "dossier_" + patient.getNumeroDossier() + ".pdf");
-
-            return ResponseEntity.ok()
-                    .headers(headers)
-                    .body(pdfStream.toByteArray());
-        } catch (DocumentException | IOException e) {
+            serveCachedExport(patient, dossier, ExportFormat.PDF,
+                    outputStream -> exportService.exportToPDF(patient, dossier, outputStream), response);
+        } catch (Exception e) {
             log.error("Erreur lors de la génération du PDF", e);
-            return ResponseEntity.internalServerError().build();
+            sendErrorIfUncommitted(response);
         }
     }
 
     @GetMapping("/{id}/export/excel")
     @PreAuthorize("hasRole('MEDECIN')")
-    public ResponseEntity<byte[]> exportPatientToExcel(@PathVariable Long id) {
+    public void exportPatientToExcel(@PathVariable Long id, HttpServletResponse response) throws IOException {
         log.info("Export Excel du patient avec l'ID: {}", id);
+        Patient patient = patientService.getPatientById(id)
+                .orElseThrow(() -> new com.nfc4care.exception.ResourceNotFoundException("Patient non trouvé"));
+        var dossier = dossierMedicalService.getByPatientId(id).orElse(null);
         try {
-            Patient patient = patientService.getPatientById(id)
-                    .orElseThrow(() -> new com.nfc4care.exception.ResourceNotFoundException("Patient non trouvé"));
+            serveCachedExport(patient, dossier, ExportFormat.EXCEL,
+                    outputStream -> exportService.exportToExcel(patient, dossier, outputStream), response);
+        } catch (Exception e) {
+            log.error("Erreur lors de la génération d'Excel", e);
+            sendErrorIfUncommitted(response);
+        }
+    }
 
-            var dossier = dossierMedicalService.getByPatientId(id).orElse(null);
-            ByteArrayOutputStream excelStream = exportService.exportToExcel(patient, dossier);
+    /**
+     * Sert un export depuis le cache disque (rendu au premier appel), avec Content-Length connu
+     * Écrit dans le thread de la requête : le canal, ouvert sous le verrou du cache, est toujours refermé.
+     * Copie en espace utilisateur (transferTo vers le flux servlet passe par un tampon) : le sendfile de Tomcat
+     * relirait le fichier par son chemin après la réponse, alors que le cache LRU peut l'avoir supprimé.
+     */
+    private void serveCachedExport(Patient patient, DossierMedical dossier, ExportFormat format,
+                                   ExportCache.ExportRenderer renderer, HttpServletResponse response) throws Exception {
+        String key = exportCache.key(patient, dossier, format);
+        try (FileChannel channel = exportCache.openOrRender(key, patient.getId(), renderer)) {
+            long size = channel.size();
+            response.setContentType(format.getContentType());
+            response.setHeader(HttpHeaders.CONTENT_DISPOSITION, ContentDisposition.attachment()
+                    .filename("dossier_" + patient.getNumeroDossier() + "." + format.getExtension())
+                    .build()
+                    .toString());
+            response.setContentLengthLong(size);
 
-            HttpHeaders headers = new HttpHeaders();
-            headers.setContentType(MediaType.parseMediaType("application/vnd.openxmlformats-officedocument.spreadsheetml.sheet"));
-            headers.setContentDispositionFormData("attachment",
-                    "dossier_" + patient.getNumeroDossier() + ".xlsx");
+            WritableByteChannel target = Channels.newChannel(response.getOutputStream());
+            long position = 0;
+            while (position < size) {
+                position += channel.transferTo(position, size - position, target);
+            }
+        }
+    }
 
-            return ResponseEntity.ok()
-                    .headers(headers)
-                    .body(excelStream.toByteArray());
-        } catch (IOException e) {
-            log.error("Erreur lors de la génération d'Excel", e);
-            return ResponseEntity.internalServerError().build();
+    private void sendErrorIfUncommitted(HttpServletResponse response) throws IOException {
+        if (!response.isCommitted()) {
+            response.reset();
+            response.sendError(HttpStatus.INTERNAL_SERVER_ERROR.value());
         }
     }
-} 
\ No newline at end of file
+
+    /**
+     * Classeur unique des patients vus par un professionnel sur une période, avec leurs consultations
+     */
+    @GetMapping("/export/cohort")
+    @PreAuthorize("hasRole('MEDECIN')")
+    public ResponseEntity<StreamingResponseBody> exportCohortToExcel(
+            @RequestParam Long professionnelId,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to) {
+        log.info("Export Excel de cohorte - professionnel: {}, du {} au {}", professionnelId, from, to);
+        if (from.isAfter(to) || ChronoUnit.DAYS.between(from, to) >= COHORT_MAX_DAYS) {
+            log.warn("❌ Période de cohorte invalide (du {} au {}, {} jours maximum)", from, to, COHORT_MAX_DAYS);
+            return ResponseEntity.badRequest().build();
+        }
+        var professionnel = exportService.getCohortProfessionnel(professionnelId);
+
+        StreamingResponseBody body = outputStream -> {
+            BufferedOutputStream buffered = new BufferedOutputStream(outputStream, EXPORT_BUFFER_SIZE);
+            exportService.exportCohortToExcel(professionnel, from, to, buffered);
+            buffered.flush();
+        };
+
+        HttpHeaders headers = new HttpHeaders();
+        headers.setContentType(MediaType.parseMediaType("application/vnd.openxmlformats-officedocument.spreadsheetml.sheet"));
+        headers.setContentDispositionFormData("attachment",
+                "cohorte_" + professionnelId + "_" + from + "_" + to + ".xlsx");
+
+        return ResponseEntity.ok()
+                .headers(headers)
+                .body(body);
+    }
+}
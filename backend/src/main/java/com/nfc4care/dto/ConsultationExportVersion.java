@@ -0,0 +1,13 @@
+package com.nfc4care.dto;
+
+import java.time.LocalDateTime;
+
+/**
+ * Version des consultations d'un dossier, lue par expression constructeur :
+ * change à chaque création (nombre, identifiant max), suppression (nombre) ou modification (date max)
+ */
+public record ConsultationExportVersion(
+        Long count,
+        Long maxId,
+        LocalDateTime lastModification) {
+}
@@ -0,0 +1,22 @@
+package com.nfc4care.dto;
+
+import java.time.LocalDateTime;
+
+/**
+ * Ligne de la frise des consultations, lue par expression constructeur (aucune colonne TEXT clinique hormis
+ * motif et diagnostic, aucune entité matérialisée)
+ */
+public record ConsultationSummaryRow(
+        Long id,
+        LocalDateTime dateConsultation,
+        String motifConsultation,
+        String diagnostic,
+        Long patientId,
+        String patientNom,
+        String patientPrenom,
+        String patientNumeroDossier,
+        Long professionnelId,
+        String professionnelNom,
+        String professionnelPrenom,
+        String professionnelSpecialite) {
+}
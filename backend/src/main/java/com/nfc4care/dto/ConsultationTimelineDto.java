@@ -0,0 +1,36 @@
+package com.nfc4care.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Frise des consultations : résumés légers et tables annexes des patients et professionnels,
+ * chaque personne n'étant sérialisée qu'une fois par réponse
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class ConsultationTimelineDto {
+    private List<Summary> consultations;
+    private Map<Long, PatientRef> patients;
+    private Map<Long, ProfessionnelRef> professionnels;
+    private boolean hasNext;
+    private String nextCursor;
+
+    public record Summary(Long id, LocalDateTime dateConsultation, String motifConsultation, String diagnostic,
+                          Long patientId, Long professionnelId) {
+    }
+
+    public record PatientRef(Long id, String nom, String prenom, String numeroDossier) {
+    }
+
+    public record ProfessionnelRef(Long id, String nom, String prenom, String specialite) {
+    }
+}
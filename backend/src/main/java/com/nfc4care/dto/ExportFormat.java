@@ -0,0 +1,38 @@
+package com.nfc4care.dto;
+
+import java.util.Locale;
+
+/**
+ * Formats d'export du dossier d'un patient
+ */
+public enum ExportFormat {
+    PDF("application/pdf", "pdf"),
+    EXCEL("application/vnd.openxmlformats-officedocument.spreadsheetml.sheet", "xlsx");
+
+    private final String contentType;
+    private final String extension;
+
+    ExportFormat(String contentType, String extension) {
+        this.contentType = contentType;
+        this.extension = extension;
+    }
+
+    public String getContentType() {
+        return contentType;
+    }
+
+    public String getExtension() {
+        return extension;
+    }
+
+    /**
+     * @throws IllegalArgumentException si le format est inconnu
+     */
+    public static ExportFormat parse(String value) {
+        try {
+            return ExportFormat.valueOf(value.trim().toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Format d'export invalide: " + value + " (pdf ou excel)");
+        }
+    }
+}
@@ -0,0 +1,28 @@
+package com.nfc4care.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * État d'une tâche d'export asynchrone
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class ExportJobDto {
+    private String id;
+    private Long patientId;
+    private ExportFormat format;
+    private String status;
+    private LocalDateTime createdAt;
+    private LocalDateTime finishedAt;
+    private Long sizeBytes;
+    private String error;
+}
@@ -0,0 +1,28 @@
+package com.nfc4care.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDate;
+
+/**
+ * Résultat d'un scan de carte NFC : résumé du patient et identifiant de son dossier médical
+ * Construit en une seule requête (PatientRepository.findScanResultByNumeroNFC) puis mis en cache
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class NfcScanResult {
+    private Long patientId;
+    private String numeroDossier;
+    private String nom;
+    private String prenom;
+    private LocalDate dateNaissance;
+    private String sexe;
+    private String groupeSanguin;
+    private String telephone;
+    private String numeroNFC;
+    private boolean actif;
+    private Long dossierMedicalId;
+}
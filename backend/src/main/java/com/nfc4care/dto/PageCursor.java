@@ -0,0 +1,38 @@
+package com.nfc4care.dto;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.Base64;
+
+/**
+ * Curseur de pagination opaque : clé de tri (date, id) du dernier élément renvoyé
+ * (dateCreation pour les patients, dateConsultation pour les consultations)
+ */
+public record PageCursor(LocalDateTime sortDate, Long id) {
+
+    private static final String SEPARATOR = "|";
+
+    public String encode() {
+        String raw = sortDate + SEPARATOR + id;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Décode un curseur reçu du client
+     * @throws IllegalArgumentException si le curseur est invalide
+     */
+    public static PageCursor decode(String cursor) {
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            int separator = raw.lastIndexOf(SEPARATOR);
+            if (separator < 0) {
+                throw new IllegalArgumentException("Curseur de pagination invalide");
+            }
+            return new PageCursor(LocalDateTime.parse(raw.substring(0, separator)),
+                    Long.parseLong(raw.substring(separator + 1)));
+        } catch (DateTimeParseException | IllegalArgumentException e) {
+            throw new IllegalArgumentException("Curseur de pagination invalide", e);
+        }
+    }
+}
@@ -1,29 +1,36 @@
 package com.nfc4care.dto;
 
+import com.fasterxml.jackson.annotation.JsonInclude;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
 import lombok.NoArgsConstructor;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Slice;
 
 import java.util.List;
+import java.util.function.Function;
 
 /**
  * Réponse paginée standardisée
+ * En pagination par curseur, nextCursor remplace le numéro de page et le total n'est renseigné que sur demande
  * @param <T> Type des éléments dans la page
  */
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
 @Builder
+@JsonInclude(JsonInclude.Include.NON_NULL)
 public class PagedResponse<T> {
     private List<T> content;
-    private int pageNumber;
+    private Integer pageNumber;
     private int pageSize;
-    private long totalElements;
-    private int totalPages;
+    private Long totalElements;
+    private Integer totalPages;
     private boolean hasNext;
     private boolean hasPrevious;
+    private String nextCursor;
+    private Boolean totalEstimated;
 
     /**
      * Crée une réponse paginée à partir d'une Page Spring
@@ -39,4 +46,44 @@ public class PagedResponse<T> {
                 .hasPrevious(page.hasPrevious())
                 .build();
     }
+
+    /**
+     * Crée une réponse paginée à partir d'une Slice Spring (aucun COUNT exécuté)
+     * @param totalElements total estimé, ou null
+     */
+    public static <T> PagedResponse<T> ofSlice(Slice<T> slice, Long totalElements) {
+        return PagedResponse.<T>builder()
+                .content(slice.getContent())
+                .pageNumber(slice.getNumber())
+                .pageSize(slice.getSize())
+                .totalElements(totalElements)
+                .totalPages(totalElements != null ? (int) Math.ceil((double) totalElements / slice.getSize()) : null)
+                .totalEstimated(totalElements != null ? Boolean.TRUE : null)
+                .hasNext(slice.hasNext())
+                .hasPrevious(slice.hasPrevious())
+                .build();
+    }
+
+    /**
+     * Crée une réponse paginée par curseur à partir de size + 1 éléments lus
+     * @param rows éléments lus (au plus size + 1, le dernier ne servant qu'à calculer hasNext)
+     * @param cursorOf clé de tri d'un élément
+     * @param totalElements total connu, ou null
+     */
+    public static <T> PagedResponse<T> ofCursor(List<T> rows, int size, boolean hasPrevious,
+                                                Function<T, PageCursor> cursorOf,
+                                                Long totalElements) {
+        boolean hasNext = rows.size() > size;
+        List<T> content = hasNext ? rows.subList(0, size) : rows;
+        String nextCursor = hasNext ? cursorOf.apply(content.get(content.size() - 1)).encode() : null;
+        return PagedResponse.<T>builder()
+                .content(content)
+                .pageSize(size)
+                .totalElements(totalElements)
+                .totalPages(totalElements != null ? (int) Math.ceil((double) totalElements / size) : null)
+                .hasNext(hasNext)
+                .hasPrevious(hasPrevious)
+                .nextCursor(nextCursor)
+                .build();
+    }
 }
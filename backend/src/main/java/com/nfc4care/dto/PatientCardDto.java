@@ -0,0 +1,20 @@
+package com.nfc4care.dto;
+
+import com.nfc4care.entity.Patient;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * Fiche patient affichée après un scan : patient, dossier médical et dernières consultations
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class PatientCardDto {
+    private Patient patient;
+    private DossierMedicalDto dossierMedical;
+    private List<ConsultationDto> consultations;
+}
@@ -0,0 +1,25 @@
+package com.nfc4care.dto;
+
+import java.util.Locale;
+
+/**
+ * Calcul du total d'une réponse paginée
+ * EXACT : COUNT exécuté avec la page ; NONE : aucun total (tranche size + 1) ;
+ * ESTIMATE : estimation des statistiques PostgreSQL
+ */
+public enum TotalMode {
+    EXACT,
+    NONE,
+    ESTIMATE;
+
+    /**
+     * @throws IllegalArgumentException si la valeur est inconnue
+     */
+    public static TotalMode parse(String value) {
+        try {
+            return TotalMode.valueOf(value.trim().toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Mode de total invalide: " + value + " (exact, none ou estimate)");
+        }
+    }
+}
@@ -62,6 +62,12 @@ public class Patient {
     @Column(nullable = false)
     private boolean actif = true;
     
+    // Colonne de recherche normalisée calculée par PostgreSQL, indexée en trigrammes (database/patient_search.sql)
+    @JsonIgnore
+    @Column(name = "search_text", insertable = false, updatable = false,
+            columnDefinition = "text GENERATED ALWAYS AS (lower(nom || ' ' || prenom || ' ' || numero_dossier || ' ' || telephone || ' ' || coalesce(email, ''))) STORED")
+    private String searchText;
+    
     // Ignorer cette propriété lors de la sérialisation JSON pour éviter les problèmes avec les proxies Hibernate
     @JsonIgnore
     public Object getHibernateLazyInitializer() {
@@ -64,6 +64,11 @@ public class Professionnel implements UserDetails {
     @Column(name = "two_fa_enabled")
     private boolean twoFaEnabled = false;
 
+    @Column(name = "token_generation", nullable = false, columnDefinition = "bigint default 0",
+            insertable = false, updatable = false)
+    @JsonIgnore
+    private long tokenGeneration; // Génération des tokens (mode de révocation stateless), modifiée uniquement par UPDATE
+
     @PrePersist
     protected void onCreate() {
         dateCreation = LocalDateTime.now();
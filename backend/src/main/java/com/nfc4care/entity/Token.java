@@ -9,7 +9,9 @@ import lombok.Builder;
 import java.time.LocalDateTime;
 
 @Entity
-@Table(name = "tokens")
+// Index non unique : la disposition partitionnée par expires_at n'admet pas d'index unique sur le seul hash
+// (l'unicité est imposée par database/tokens.sql dans la disposition classique)
+@Table(name = "tokens", indexes = @Index(name = "idx_tokens_token_hash", columnList = "tokenHash"))
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
@@ -20,9 +22,13 @@ public class Token {
     @GeneratedValue(strategy = GenerationType.IDENTITY)
     private Long id;
     
-    @Column(nullable = false, unique = true)
+    @Column(nullable = false, length = 1000)
     private String tokenValue;
     
+    // Empreinte SHA-256 (hex) du token : clé de recherche de taille fixe
+    @Column(nullable = false, length = 64)
+    private String tokenHash;
+    
     @Column(nullable = false)
     private String userEmail;
     
@@ -0,0 +1,7 @@
+package com.nfc4care.exception;
+
+public class ExportQuotaExceededException extends RuntimeException {
+    public ExportQuotaExceededException(String message) {
+        super(message);
+    }
+}
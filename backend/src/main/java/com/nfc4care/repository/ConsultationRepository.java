@@ -1,23 +1,96 @@
 package com.nfc4care.repository;
 
+import com.nfc4care.dto.ConsultationExportVersion;
+import com.nfc4care.dto.ConsultationSummaryRow;
 import com.nfc4care.entity.Consultation;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
 
 @Repository
 public interface ConsultationRepository extends JpaRepository<Consultation, Long> {
     
     List<Consultation> findByDossierMedicalIdOrderByDateConsultationDesc(Long dossierMedicalId);
     
+    // Les graphes chargent dossier, patient et professionnel dans la même requête (pas de N+1 dans ConsultationService.toDto)
+    @EntityGraph(attributePaths = {"dossierMedical.patient", "professionnel"})
+    Optional<Consultation> findWithDetailsById(Long id);
+    
+    // Pagination par curseur (dateConsultation, id), servie par idx_consultations_date_id
+    @EntityGraph(attributePaths = {"dossierMedical.patient", "professionnel"})
+    @Query("SELECT c FROM Consultation c ORDER BY c.dateConsultation DESC, c.id DESC")
+    List<Consultation> findFirstKeyset(Pageable pageable);
+    
+    @EntityGraph(attributePaths = {"dossierMedical.patient", "professionnel"})
+    @Query("SELECT c FROM Consultation c WHERE c.dateConsultation < :dateConsultation " +
+           "OR (c.dateConsultation = :dateConsultation AND c.id < :id) ORDER BY c.dateConsultation DESC, c.id DESC")
+    List<Consultation> findKeysetAfter(@Param("dateConsultation") LocalDateTime dateConsultation, @Param("id") Long id, Pageable pageable);
+    
+    // Curseurs serveur : à consommer dans une transaction, le contexte de persistance étant vidé au fil de l'eau
+    @EntityGraph(attributePaths = {"dossierMedical.patient", "professionnel"})
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"))
+    @Query("SELECT c FROM Consultation c ORDER BY c.dateConsultation DESC, c.id DESC")
+    Stream<Consultation> streamAllWithDetails();
+    
+    @EntityGraph(attributePaths = {"dossierMedical.patient", "professionnel"})
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"))
+    @Query("SELECT c FROM Consultation c WHERE c.dossierMedical.patient.id = :patientId ORDER BY c.dateConsultation DESC, c.id DESC")
+    Stream<Consultation> streamByPatientIdWithDetails(@Param("patientId") Long patientId);
+    
+    // Export de cohorte : trié par patient pour écrire chaque patient une seule fois
+    @EntityGraph(attributePaths = {"dossierMedical.patient"})
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"))
+    @Query("SELECT c FROM Consultation c WHERE c.professionnel.id = :professionnelId " +
+           "AND c.dateConsultation >= :start AND c.dateConsultation < :end " +
+           "ORDER BY c.dossierMedical.patient.id, c.dateConsultation, c.id")
+    Stream<Consultation> streamByProfessionnelAndPeriod(@Param("professionnelId") Long professionnelId,
+                                                         @Param("start") LocalDateTime start, @Param("end") LocalDateTime end);
+    
+    @EntityGraph(attributePaths = {"dossierMedical.patient", "professionnel"})
     @Query("SELECT c FROM Consultation c WHERE c.dossierMedical.patient.id = :patientId ORDER BY c.dateConsultation DESC")
     List<Consultation> findByPatientIdOrderByDateConsultationDesc(@Param("patientId") Long patientId);
     
+    // Dernières consultations d'un patient, dossier, patient et professionnel chargés dans la même requête
+    @Query("SELECT c FROM Consultation c JOIN FETCH c.dossierMedical d JOIN FETCH d.patient p JOIN FETCH c.professionnel " +
+           "WHERE p.id = :patientId ORDER BY c.dateConsultation DESC, c.id DESC")
+    List<Consultation> findLatestByPatientIdWithDetails(@Param("patientId") Long patientId, Pageable pageable);
+    
+    // Frise : projection sur les seules colonnes affichées
+    String SUMMARY_SELECT = "SELECT new com.nfc4care.dto.ConsultationSummaryRow(c.id, c.dateConsultation, c.motifConsultation, " +
+            "c.diagnostic, p.id, p.nom, p.prenom, p.numeroDossier, pr.id, pr.nom, pr.prenom, pr.specialite) " +
+            "FROM Consultation c JOIN c.dossierMedical d JOIN d.patient p JOIN c.professionnel pr ";
+    
+    @Query(SUMMARY_SELECT + "ORDER BY c.dateConsultation DESC, c.id DESC")
+    List<ConsultationSummaryRow> findSummaries(Pageable pageable);
+    
+    @Query(SUMMARY_SELECT + "WHERE c.dateConsultation < :dateConsultation " +
+           "OR (c.dateConsultation = :dateConsultation AND c.id < :id) ORDER BY c.dateConsultation DESC, c.id DESC")
+    List<ConsultationSummaryRow> findSummariesAfter(@Param("dateConsultation") LocalDateTime dateConsultation, @Param("id") Long id, Pageable pageable);
+    
+    @Query(SUMMARY_SELECT + "WHERE p.id = :patientId ORDER BY c.dateConsultation DESC, c.id DESC")
+    List<ConsultationSummaryRow> findPatientSummaries(@Param("patientId") Long patientId, Pageable pageable);
+    
+    @Query(SUMMARY_SELECT + "WHERE p.id = :patientId AND (c.dateConsultation < :dateConsultation " +
+           "OR (c.dateConsultation = :dateConsultation AND c.id < :id)) ORDER BY c.dateConsultation DESC, c.id DESC")
+    List<ConsultationSummaryRow> findPatientSummariesAfter(@Param("patientId") Long patientId, @Param("dateConsultation") LocalDateTime dateConsultation,
+                                                           @Param("id") Long id, Pageable pageable);
+    
+    // Clé du cache des exports : l'historique des consultations fait partie du PDF
+    @Query("SELECT new com.nfc4care.dto.ConsultationExportVersion(COUNT(c), MAX(c.id), MAX(c.dateModification)) " +
+           "FROM Consultation c WHERE c.dossierMedical.id = :dossierMedicalId")
+    ConsultationExportVersion findExportVersion(@Param("dossierMedicalId") Long dossierMedicalId);
+    
     @Query("SELECT c FROM Consultation c WHERE c.professionnel.id = :professionnelId AND c.dateConsultation >= :startDate ORDER BY c.dateConsultation DESC")
     List<Consultation> findByProfessionnelIdAndDateConsultationAfter(@Param("professionnelId") Long professionnelId, @Param("startDate") LocalDateTime startDate);
     
@@ -1,18 +1,21 @@
 package com.nfc4care.repository;
 
+import com.nfc4care.dto.NfcScanResult;
 import com.nfc4care.entity.Patient;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Optional;
 
 @Repository
-public interface PatientRepository extends JpaRepository<Patient, Long> {
+public interface PatientRepository extends JpaRepository<Patient, Long>, PatientRepositoryCustom {
 
     Optional<Patient> findByNumeroDossier(String numeroDossier);
 
@@ -20,14 +23,47 @@ public interface PatientRepository extends JpaRepository<Patient, Long> {
 
     Optional<Patient> findByNumeroNFC(String numeroNFC);
 
-    @Query("SELECT p FROM Patient p WHERE p.actif = true AND " +
-           "(LOWER(p.nom) LIKE LOWER(CONCAT('%', :searchTerm, '%')) OR " +
-           "LOWER(p.prenom) LIKE LOWER(CONCAT('%', :searchTerm, '%')) OR " +
-           "p.numeroDossier LIKE CONCAT('%', :searchTerm, '%') OR " +
-           "p.telephone LIKE CONCAT('%', :searchTerm, '%') OR " +
-           "LOWER(p.email) LIKE LOWER(CONCAT('%', :searchTerm, '%')))")
+    // Scan NFC : patient et identifiant du dossier en un seul aller-retour
+    @Query("SELECT new com.nfc4care.dto.NfcScanResult(p.id, p.numeroDossier, p.nom, p.prenom, p.dateNaissance, p.sexe, " +
+           "p.groupeSanguin, p.telephone, p.numeroNFC, p.actif, d.id) " +
+           "FROM Patient p LEFT JOIN DossierMedical d ON d.patient = p WHERE p.numeroNFC = :numeroNFC")
+    Optional<NfcScanResult> findScanResultByNumeroNFC(@Param("numeroNFC") String numeroNFC);
+
+    // Servie par l'index GIN pg_trgm sur search_text (database/patient_search.sql)
+    @Query("SELECT p FROM Patient p WHERE p.actif = true AND p.searchText LIKE CONCAT('%', LOWER(:searchTerm), '%')")
     Page<Patient> searchPatients(@Param("searchTerm") String searchTerm, Pageable pageable);
+
+    // Slice : size + 1 lignes lues pour hasNext, sans requête COUNT
+    @Query("SELECT p FROM Patient p WHERE p.actif = true AND p.searchText LIKE CONCAT('%', LOWER(:searchTerm), '%')")
+    Slice<Patient> searchPatientsSlice(@Param("searchTerm") String searchTerm, Pageable pageable);
+
+    @Query("SELECT p FROM Patient p")
+    Slice<Patient> findAllSlice(Pageable pageable);
+
+    @Query("SELECT COUNT(p) FROM Patient p WHERE p.actif = true AND p.searchText LIKE CONCAT('%', LOWER(:searchTerm), '%')")
+    long countSearch(@Param("searchTerm") String searchTerm);
+
+    // Pagination par curseur (dateCreation, id) : pas d'OFFSET ni de COUNT, servie par idx_patients_date_creation_id
+    @Query("SELECT p FROM Patient p ORDER BY p.dateCreation DESC, p.id DESC")
+    List<Patient> findFirstKeyset(Pageable pageable);
+
+    @Query("SELECT p FROM Patient p WHERE p.dateCreation < :dateCreation " +
+           "OR (p.dateCreation = :dateCreation AND p.id < :id) ORDER BY p.dateCreation DESC, p.id DESC")
+    List<Patient> findKeysetAfter(@Param("dateCreation") LocalDateTime dateCreation, @Param("id") Long id, Pageable pageable);
+
+    @Query("SELECT p FROM Patient p WHERE p.actif = true AND p.searchText LIKE CONCAT('%', LOWER(:searchTerm), '%') " +
+           "ORDER BY p.dateCreation DESC, p.id DESC")
+    List<Patient> searchFirstKeyset(@Param("searchTerm") String searchTerm, Pageable pageable);
+
+    @Query("SELECT p FROM Patient p WHERE p.actif = true AND p.searchText LIKE CONCAT('%', LOWER(:searchTerm), '%') " +
+           "AND (p.dateCreation < :dateCreation OR (p.dateCreation = :dateCreation AND p.id < :id)) " +
+           "ORDER BY p.dateCreation DESC, p.id DESC")
+    List<Patient> searchKeysetAfter(@Param("searchTerm") String searchTerm, @Param("dateCreation") LocalDateTime dateCreation,
+                                    @Param("id") Long id, Pageable pageable);
     
+    // Chargement par lots de l'index de recherche en mémoire
+    List<Patient> findByActifTrueAndIdGreaterThanOrderByIdAsc(Long id, Pageable pageable);
+
     boolean existsByNumeroDossier(String numeroDossier);
     
     boolean existsByNumeroSecuriteSociale(String numeroSecuriteSociale);
@@ -0,0 +1,17 @@
+package com.nfc4care.repository;
+
+/**
+ * Estimations de cardinalité tirées des statistiques PostgreSQL (sans COUNT)
+ */
+public interface PatientRepositoryCustom {
+
+    /**
+     * Nombre approximatif de patients (pg_class.reltuples, mis à jour par ANALYZE/autovacuum)
+     */
+    long estimateCount();
+
+    /**
+     * Nombre approximatif de patients actifs correspondant au terme, selon l'estimation du planificateur
+     */
+    long estimateSearchCount(String searchTerm);
+}
@@ -0,0 +1,41 @@
+package com.nfc4care.repository;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.Locale;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+@RequiredArgsConstructor
+public class PatientRepositoryImpl implements PatientRepositoryCustom {
+
+    private static final String ESTIMATE_COUNT_SQL =
+            "SELECT reltuples::bigint FROM pg_class WHERE oid = 'patients'::regclass";
+
+    // Même prédicat que PatientRepository.searchPatients ; seul le plan est calculé, la requête n'est pas exécutée
+    private static final String EXPLAIN_SEARCH_SQL =
+            "EXPLAIN (FORMAT JSON) SELECT 1 FROM patients WHERE actif = true AND search_text LIKE ?";
+
+    private static final Pattern PLAN_ROWS = Pattern.compile("\"Plan Rows\"\\s*:\\s*(\\d+)");
+
+    private final JdbcTemplate jdbcTemplate;
+
+    @Override
+    public long estimateCount() {
+        Long estimate = jdbcTemplate.queryForObject(ESTIMATE_COUNT_SQL, Long.class);
+        // reltuples vaut -1 tant que la table n'a jamais été analysée
+        return estimate != null ? Math.max(estimate, 0) : 0;
+    }
+
+    @Override
+    public long estimateSearchCount(String searchTerm) {
+        String plan = jdbcTemplate.queryForObject(EXPLAIN_SEARCH_SQL, String.class,
+                "%" + searchTerm.toLowerCase(Locale.ROOT) + "%");
+        if (plan == null) {
+            return 0;
+        }
+        Matcher matcher = PLAN_ROWS.matcher(plan);
+        return matcher.find() ? Long.parseLong(matcher.group(1)) : 0;
+    }
+}
@@ -1,8 +1,12 @@
 package com.nfc4care.repository;
 
 import com.nfc4care.entity.Professionnel;
+import com.nfc4care.security.ProfessionnelPrincipal;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.util.Optional;
 
@@ -16,4 +20,18 @@ public interface ProfessionnelRepository extends JpaRepository<Professionnel, Lo
     boolean existsByEmail(String email);
     
     boolean existsByNumeroRPPS(String numeroRPPS);
+    
+    @Query("SELECT new com.nfc4care.security.ProfessionnelPrincipal(p.email, p.role, p.actif) FROM Professionnel p WHERE p.email = :email")
+    Optional<ProfessionnelPrincipal> findPrincipalByEmail(@Param("email") String email);
+    
+    @Query("SELECT p.tokenGeneration FROM Professionnel p WHERE p.email = :email")
+    Optional<Long> findTokenGenerationByEmail(@Param("email") String email);
+    
+    /**
+     * Incrémente la génération de tokens et renvoie la nouvelle valeur en une seule instruction
+     */
+    @Transactional
+    @Query(value = "UPDATE professionnels SET token_generation = token_generation + 1 WHERE email = :email RETURNING token_generation",
+            nativeQuery = true)
+    Optional<Long> incrementTokenGeneration(@Param("email") String email);
 } 
\ No newline at end of file
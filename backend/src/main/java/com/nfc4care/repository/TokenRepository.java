@@ -13,9 +13,9 @@ import java.util.List;
 import java.util.Optional;
 
 @Repository
-public interface TokenRepository extends JpaRepository<Token, Long> {
+public interface TokenRepository extends JpaRepository<Token, Long>, TokenRepositoryCustom {
     
-    Optional<Token> findByTokenValue(String tokenValue);
+    Optional<Token> findByTokenHash(String tokenHash);
     
     List<Token> findByUserEmailAndRevokedFalseAndExpiredFalse(String userEmail);
     
@@ -29,15 +29,6 @@ public interface TokenRepository extends JpaRepository<Token, Long> {
     
     @Modifying
     @Transactional
-    @Query("UPDATE Token t SET t.expired = true WHERE t.expiresAt < :now")
-    int expireTokens(@Param("now") LocalDateTime now);
-    
-    @Query("SELECT COUNT(t) FROM Token t WHERE t.userEmail = :userEmail AND t.revoked = false AND t.expired = false")
-    long countValidTokensByUser(@Param("userEmail") String userEmail);
-    
-    @Transactional
-    void deleteByExpiresAtBefore(LocalDateTime date);
-    
-    @Query("SELECT DISTINCT t.userEmail FROM Token t WHERE t.revoked = false AND t.expired = false AND t.expiresAt > :now")
-    List<String> findUsersWithActiveTokens(@Param("now") LocalDateTime now);
+    @Query("UPDATE Token t SET t.revoked = true WHERE t.userEmail = :userEmail AND t.revoked = false AND t.expired = false AND t.expiresAt > :now")
+    int revokeActiveUserTokens(@Param("userEmail") String userEmail, @Param("now") LocalDateTime now);
 } 
\ No newline at end of file
@@ -0,0 +1,39 @@
+package com.nfc4care.repository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Opérations ensemblistes sur la table des tokens, exécutées en SQL natif
+ */
+public interface TokenRepositoryCustom {
+    
+    /**
+     * Révoque, par lot, les tokens actifs qui ne sont pas le plus récent de leur utilisateur
+     * @return les emails des utilisateurs concernés (un élément par token révoqué)
+     */
+    List<String> revokeDuplicateActiveTokens(LocalDateTime now, int batchSize);
+    
+    /**
+     * Marque comme expiré un lot de tokens dont la date d'expiration est dépassée
+     * @return le nombre de tokens marqués
+     */
+    int markExpiredTokensBatch(LocalDateTime now, int batchSize);
+    
+    /**
+     * Supprime un lot de tokens expirés avant la date limite
+     * @return le nombre de tokens supprimés
+     */
+    int deleteExpiredTokensBatch(LocalDateTime cutoff, int batchSize);
+    
+    /**
+     * Disposition partitionnée : crée les partitions journalières des prochains jours
+     */
+    void createTokenPartitions(int daysAhead);
+    
+    /**
+     * Disposition partitionnée : supprime les partitions entièrement expirées avant la date limite
+     * @return le nombre de partitions supprimées
+     */
+    int dropExpiredTokenPartitions(LocalDateTime cutoff);
+}
@@ -0,0 +1,77 @@
+package com.nfc4care.repository;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.List;
+
+@RequiredArgsConstructor
+public class TokenRepositoryImpl implements TokenRepositoryCustom {
+    
+    private static final String REVOKE_DUPLICATE_ACTIVE_TOKENS_SQL = """
+            UPDATE tokens SET revoked = true
+            WHERE id IN (
+                SELECT id FROM (
+                    SELECT id, ROW_NUMBER() OVER (PARTITION BY user_email ORDER BY created_at DESC, id DESC) AS rang
+                    FROM tokens
+                    WHERE revoked = false AND expired = false AND expires_at > ?
+                ) actifs
+                WHERE rang > 1
+                LIMIT ?
+            )
+            RETURNING user_email
+            """;
+    
+    // SKIP LOCKED : un lot ne bloque ni les requêtes d'authentification ni une autre instance
+    private static final String MARK_EXPIRED_TOKENS_SQL = """
+            UPDATE tokens SET expired = true
+            WHERE id IN (
+                SELECT id FROM tokens
+                WHERE expired = false AND expires_at < ?
+                LIMIT ?
+                FOR UPDATE SKIP LOCKED
+            )
+            """;
+    
+    private static final String DELETE_EXPIRED_TOKENS_SQL = """
+            DELETE FROM tokens
+            WHERE id IN (
+                SELECT id FROM tokens
+                WHERE expires_at < ?
+                LIMIT ?
+                FOR UPDATE SKIP LOCKED
+            )
+            """;
+    
+    private final JdbcTemplate jdbcTemplate;
+    
+    @Override
+    public List<String> revokeDuplicateActiveTokens(LocalDateTime now, int batchSize) {
+        return jdbcTemplate.queryForList(REVOKE_DUPLICATE_ACTIVE_TOKENS_SQL, String.class,
+                Timestamp.valueOf(now), batchSize);
+    }
+    
+    @Override
+    public int markExpiredTokensBatch(LocalDateTime now, int batchSize) {
+        return jdbcTemplate.update(MARK_EXPIRED_TOKENS_SQL, Timestamp.valueOf(now), batchSize);
+    }
+    
+    @Override
+    public int deleteExpiredTokensBatch(LocalDateTime cutoff, int batchSize) {
+        return jdbcTemplate.update(DELETE_EXPIRED_TOKENS_SQL, Timestamp.valueOf(cutoff), batchSize);
+    }
+    
+    @Override
+    public void createTokenPartitions(int daysAhead) {
+        jdbcTemplate.queryForObject("SELECT tokens_create_partitions(?)", Integer.class, daysAhead);
+    }
+    
+    @Override
+    public int dropExpiredTokenPartitions(LocalDateTime cutoff) {
+        Integer dropped = jdbcTemplate.queryForObject("SELECT tokens_drop_expired_partitions(?)", Integer.class,
+                Timestamp.valueOf(cutoff));
+        return dropped != null ? dropped : 0;
+    }
+}
@@ -1,7 +1,7 @@
 package com.nfc4care.security;
 
+import com.nfc4care.service.CustomUserDetailsService;
 import com.nfc4care.service.JwtService;
-import com.nfc4care.service.TokenService;
 import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
 import jakarta.servlet.http.HttpServletRequest;
@@ -12,7 +12,6 @@ import org.springframework.lang.NonNull;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.security.core.userdetails.UserDetails;
-import org.springframework.security.core.userdetails.UserDetailsService;
 import org.springframework.security.web.authentication.WebAuthenticationDetailsSource;
 import org.springframework.stereotype.Component;
 import org.springframework.web.filter.OncePerRequestFilter;
@@ -25,8 +24,7 @@ import java.io.IOException;
 public class JwtAuthenticationFilter extends OncePerRequestFilter {
     
     private final JwtService jwtService;
-    private final UserDetailsService userDetailsService;
-    private final TokenService tokenService;
+    private final CustomUserDetailsService userDetailsService;
     
     @Override
     protected void doFilterInternal(
@@ -51,8 +49,9 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
         log.debug("🔑 Token JWT reçu: {}...", jwt.substring(0, Math.min(20, jwt.length())));
         
         try {
-            // Vérifier d'abord la validité JWT
-            userEmail = jwtService.extractUsername(jwt);
+            // Parser et vérifier la signature une seule fois pour toute la requête
+            ParsedToken parsedToken = jwtService.parse(jwt);
+            userEmail = parsedToken.getSubject();
             
             if (userEmail == null) {
                 log.warn("❌ Impossible d'extraire l'email du token JWT");
@@ -65,7 +64,7 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
             if (SecurityContextHolder.getContext().getAuthentication() == null) {
                 // Vérifier si le token existe en base de données et est actif
                 log.debug("🔍 Vérification du token en base de données...");
-                boolean isTokenValidInDB = tokenService.isTokenValid(jwt);
+                boolean isTokenValidInDB = jwtService.isTokenActive(parsedToken);
                 
                 if (!isTokenValidInDB) {
                     log.warn("❌ Token non trouvé en base de données ou révoqué pour l'utilisateur: {}", userEmail);
@@ -77,9 +76,9 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
                 
                 log.debug("✅ Token validé en base de données");
                 
-                // Vérifier la validité JWT
-                if (jwtService.isTokenValid(jwt)) {
-                    UserDetails userDetails = this.userDetailsService.loadUserByUsername(userEmail);
+                // Vérifier l'expiration à partir des claims déjà parsés
+                if (!parsedToken.isExpired()) {
+                    UserDetails userDetails = this.userDetailsService.loadPrincipalByUsername(userEmail);
                     
                     UsernamePasswordAuthenticationToken authToken = new UsernamePasswordAuthenticationToken(
                             userDetails,
@@ -0,0 +1,41 @@
+package com.nfc4care.security;
+
+import io.jsonwebtoken.Claims;
+
+import java.util.Date;
+
+/**
+ * Token JWT dont la signature a déjà été vérifiée
+ * Parsé une seule fois par requête puis transmis au filtre et aux services
+ */
+public final class ParsedToken {
+
+    private final String rawToken;
+    private final Claims claims;
+
+    public ParsedToken(String rawToken, Claims claims) {
+        this.rawToken = rawToken;
+        this.claims = claims;
+    }
+
+    public String getRawToken() {
+        return rawToken;
+    }
+
+    public Claims getClaims() {
+        return claims;
+    }
+
+    public String getSubject() {
+        return claims.getSubject();
+    }
+
+    public Date getExpiration() {
+        return claims.getExpiration();
+    }
+
+    public boolean isExpired() {
+        Date expiration = claims.getExpiration();
+        return expiration != null && expiration.before(new Date());
+    }
+}
@@ -0,0 +1,61 @@
+package com.nfc4care.security;
+
+import com.nfc4care.entity.Professionnel;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.security.core.userdetails.UserDetails;
+
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Principal d'authentification réduit aux autorités
+ * Ne porte ni le hash du mot de passe ni le secret 2FA, il peut donc être mis en cache
+ */
+public final class ProfessionnelPrincipal implements UserDetails {
+
+    private final String email;
+    private final boolean actif;
+    private final List<GrantedAuthority> authorities;
+
+    public ProfessionnelPrincipal(String email, Professionnel.Role role, boolean actif) {
+        this.email = email;
+        this.actif = actif;
+        this.authorities = List.of(new SimpleGrantedAuthority("ROLE_" + role.name()));
+    }
+
+    @Override
+    public Collection<? extends GrantedAuthority> getAuthorities() {
+        return authorities;
+    }
+
+    @Override
+    public String getPassword() {
+        return null;
+    }
+
+    @Override
+    public String getUsername() {
+        return email;
+    }
+
+    @Override
+    public boolean isAccountNonExpired() {
+        return actif;
+    }
+
+    @Override
+    public boolean isAccountNonLocked() {
+        return actif;
+    }
+
+    @Override
+    public boolean isCredentialsNonExpired() {
+        return actif;
+    }
+
+    @Override
+    public boolean isEnabled() {
+        return actif;
+    }
+}
@@ -4,6 +4,7 @@ import com.nfc4care.dto.AuthRequest;
 import com.nfc4care.dto.AuthResponse;
 import com.nfc4care.entity.Professionnel;
 import com.nfc4care.repository.ProfessionnelRepository;
+import com.nfc4care.security.ParsedToken;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.security.authentication.AuthenticationManager;
@@ -57,12 +58,13 @@ public class AuthService {
     
     public AuthResponse verify2FA(String code, String token) {
         // Extraire les informations du token pour récupérer le professionnel
-        String email = jwtService.extractUsername(token);
+        ParsedToken parsedToken = jwtService.parse(token);
+        String email = parsedToken.getSubject();
         Professionnel professionnel = professionnelRepository.findByEmail(email)
                 .orElseThrow(() -> new RuntimeException("Professionnel non trouvé"));
 
         // Vérifier que le token est valide
-        if (!jwtService.isTokenValid(token, professionnel)) {
+        if (!jwtService.isTokenValid(parsedToken, professionnel)) {
             throw new RuntimeException("Token invalide ou expiré");
         }
 
@@ -97,7 +99,8 @@ public class AuthService {
     }
     
     public AuthResponse validateToken(String token) {
-        String email = jwtService.extractUsername(token);
+        ParsedToken parsedToken = jwtService.parse(token);
+        String email = parsedToken.getSubject();
         
         if (email == null) {
             throw new RuntimeException("Token invalide");
@@ -106,7 +109,7 @@ public class AuthService {
         Professionnel professionnel = professionnelRepository.findByEmail(email)
                 .orElseThrow(() -> new RuntimeException("Professionnel non trouvé"));
         
-        if (!jwtService.isTokenValid(token, professionnel)) {
+        if (!jwtService.isTokenValid(parsedToken, professionnel)) {
             throw new RuntimeException("Token expiré ou invalide");
         }
         
@@ -1,6 +1,14 @@
 package com.nfc4care.service;
 
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
 import com.nfc4care.dto.ConsultationDto;
+import com.nfc4care.dto.ConsultationSummaryRow;
+import com.nfc4care.dto.ConsultationTimelineDto;
+import com.nfc4care.dto.PageCursor;
+import com.nfc4care.dto.PagedResponse;
 import com.nfc4care.dto.PatientDto;
 import com.nfc4care.dto.ProfessionnelDto;
 import com.nfc4care.entity.Consultation;
@@ -10,27 +18,134 @@ import com.nfc4care.repository.ConsultationRepository;
 import com.nfc4care.repository.DossierMedicalRepository;
 import com.nfc4care.repository.ProfessionnelRepository;
 import com.nfc4care.util.HashUtil;
+import jakarta.persistence.EntityManager;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
-import org.hibernate.Hibernate;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.io.IOException;
+import java.io.OutputStream;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.stream.Stream;
 
 @Service
 @RequiredArgsConstructor
 @Slf4j
 public class ConsultationService {
     
+    private static final int STREAM_CLEAR_INTERVAL = 500;
+    
     private final ConsultationRepository consultationRepository;
     private final DossierMedicalRepository dossierMedicalRepository;
     private final ProfessionnelRepository professionnelRepository;
+    private final EntityManager entityManager;
+    private final ObjectMapper objectMapper;
+    private final ExportCache exportCache;
+    
+    /**
+     * Consultations paginées par curseur (plus récentes d'abord)
+     */
+    public PagedResponse<ConsultationDto> getConsultationsByCursor(String cursor, int size) {
+        Pageable limit = PageRequest.of(0, size + 1);
+        List<Consultation> rows;
+        if (cursor == null || cursor.isBlank()) {
+            rows = consultationRepository.findFirstKeyset(limit);
+        } else {
+            PageCursor after = PageCursor.decode(cursor);
+            rows = consultationRepository.findKeysetAfter(after.sortDate(), after.id(), limit);
+        }
+        List<ConsultationDto> dtos = rows.stream().map(this::toDto).toList();
+        return PagedResponse.ofCursor(dtos, size, cursor != null && !cursor.isBlank(),
+                dto -> new PageCursor(dto.getDateConsultation(), dto.getId()), null);
+    }
+    
+    /**
+     * Écrit toutes les consultations en tableau JSON depuis un curseur serveur, sans les charger en mémoire
+     */
+    @Transactional(readOnly = true)
+    public void streamAllConsultations(OutputStream outputStream) throws IOException {
+        try (JsonGenerator generator = objectMapper.getFactory().createGenerator(outputStream);
+             Stream<Consultation> consultations = consultationRepository.streamAllWithDetails()) {
+            generator.writeStartArray();
+            writeConsultations(consultations, generator, false);
+            generator.writeEndArray();
+        }
+    }
+    
+    /**
+     * Écrit l'historique complet d'un patient en NDJSON (une consultation par ligne) depuis un curseur serveur
+     */
+    @Transactional(readOnly = true)
+    public void streamPatientConsultationsAsNdjson(Long patientId, OutputStream outputStream) throws IOException {
+        log.info("Export NDJSON des consultations du patient: {}", patientId);
+        try (JsonGenerator generator = objectMapper.getFactory().createGenerator(outputStream);
+             Stream<Consultation> consultations = consultationRepository.streamByPatientIdWithDetails(patientId)) {
+            generator.setRootValueSeparator(null);
+            writeConsultations(consultations, generator, true);
+        }
+    }
+    
+    private void writeConsultations(Stream<Consultation> consultations, JsonGenerator generator, boolean newlineDelimited) throws IOException {
+        ObjectWriter writer = objectMapper.writerFor(ConsultationDto.class)
+                .without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
+        Iterator<Consultation> iterator = consultations.iterator();
+        int written = 0;
+        while (iterator.hasNext()) {
+            writer.writeValue(generator, toDto(iterator.next()));
+            if (newlineDelimited) {
+                generator.writeRaw('\n');
+            }
+            // Vider régulièrement le contexte de persistance (consultations, patients et professionnels déjà écrits)
+            if (++written % STREAM_CLEAR_INTERVAL == 0) {
+                entityManager.clear();
+            }
+        }
+    }
     
-    public List<Consultation> getAllConsultations() {
-        log.info("Récupération de toutes les consultations");
-        return consultationRepository.findAll();
+    /**
+     * Frise des consultations (toutes ou celles d'un patient), paginée par curseur
+     * Patients et professionnels sont regroupés dans des tables annexes indexées par identifiant
+     */
+    public ConsultationTimelineDto getTimeline(Long patientId, String cursor, int size) {
+        Pageable limit = PageRequest.of(0, size + 1);
+        PageCursor after = cursor == null || cursor.isBlank() ? null : PageCursor.decode(cursor);
+        List<ConsultationSummaryRow> rows;
+        if (patientId != null) {
+            rows = after == null
+                    ? consultationRepository.findPatientSummaries(patientId, limit)
+                    : consultationRepository.findPatientSummariesAfter(patientId, after.sortDate(), after.id(), limit);
+        } else {
+            rows = after == null
+                    ? consultationRepository.findSummaries(limit)
+                    : consultationRepository.findSummariesAfter(after.sortDate(), after.id(), limit);
+        }
+        
+        boolean hasNext = rows.size() > size;
+        List<ConsultationSummaryRow> page = hasNext ? rows.subList(0, size) : rows;
+        List<ConsultationTimelineDto.Summary> summaries = new ArrayList<>(page.size());
+        Map<Long, ConsultationTimelineDto.PatientRef> patients = new LinkedHashMap<>();
+        Map<Long, ConsultationTimelineDto.ProfessionnelRef> professionnels = new LinkedHashMap<>();
+        for (ConsultationSummaryRow row : page) {
+            summaries.add(new ConsultationTimelineDto.Summary(row.id(), row.dateConsultation(), row.motifConsultation(),
+                    row.diagnostic(), row.patientId(), row.professionnelId()));
+            patients.computeIfAbsent(row.patientId(), id -> new ConsultationTimelineDto.PatientRef(
+                    id, row.patientNom(), row.patientPrenom(), row.patientNumeroDossier()));
+            professionnels.computeIfAbsent(row.professionnelId(), id -> new ConsultationTimelineDto.ProfessionnelRef(
+                    id, row.professionnelNom(), row.professionnelPrenom(), row.professionnelSpecialite()));
+        }
+        String nextCursor = hasNext
+                ? new PageCursor(page.get(page.size() - 1).dateConsultation(), page.get(page.size() - 1).id()).encode()
+                : null;
+        return new ConsultationTimelineDto(summaries, patients, professionnels, hasNext, nextCursor);
     }
     
     public List<Consultation> getConsultationsByPatientId(Long patientId) {
@@ -40,7 +155,7 @@ public class ConsultationService {
     
     public Optional<Consultation> getConsultationById(Long id) {
         log.info("Récupération de la consultation: {}", id);
-        return consultationRepository.findById(id);
+        return consultationRepository.findWithDetailsById(id);
     }
     
     public Consultation createConsultation(ConsultationDto consultationDto) {
@@ -88,6 +203,8 @@ public class ConsultationService {
         consultation.setHashContenu(HashUtil.generateSHA256Hash(content));
 
         Consultation savedConsultation = consultationRepository.save(consultation);
+        // L'historique des consultations fait partie de l'export PDF du patient
+        exportCache.invalidatePatient(dossierMedical.getPatient().getId());
         log.info("✅ Consultation créée avec l'ID: {} par le professionnel: {}",
             savedConsultation.getId(), professionnel.getEmail());
 
@@ -140,6 +257,7 @@ public class ConsultationService {
         consultation.setHashContenu(HashUtil.generateSHA256Hash(content));
 
         Consultation updatedConsultation = consultationRepository.save(consultation);
+        exportCache.invalidatePatient(updatedConsultation.getDossierMedical().getPatient().getId());
         log.info("✅ Consultation mise à jour");
 
         return updatedConsultation;
@@ -148,11 +266,11 @@ public class ConsultationService {
     public void deleteConsultation(Long id) {
         log.info("Suppression de la consultation: {}", id);
         
-        if (!consultationRepository.existsById(id)) {
-            throw new RuntimeException("Consultation non trouvée");
-        }
+        Consultation consultation = consultationRepository.findWithDetailsById(id)
+            .orElseThrow(() -> new RuntimeException("Consultation non trouvée"));
         
         consultationRepository.deleteById(id);
+        exportCache.invalidatePatient(consultation.getDossierMedical().getPatient().getId());
         log.info("✅ Consultation supprimée");
     }
     
@@ -174,18 +292,11 @@ public class ConsultationService {
         dto.setDateCreation(consultation.getDateCreation());
         dto.setDateModification(consultation.getDateModification());
         
-        // Forcer l'initialisation des proxies Hibernate et ajouter les données du patient
-        if (consultation.getDossierMedical() != null) {
-            Hibernate.initialize(consultation.getDossierMedical());
-            if (consultation.getDossierMedical().getPatient() != null) {
-                Hibernate.initialize(consultation.getDossierMedical().getPatient());
-                dto.setPatient(toPatientDto(consultation.getDossierMedical().getPatient()));
-            }
+        // Dossier, patient et professionnel sont chargés par les graphes d'entités des requêtes de lecture
+        if (consultation.getDossierMedical() != null && consultation.getDossierMedical().getPatient() != null) {
+            dto.setPatient(toPatientDto(consultation.getDossierMedical().getPatient()));
         }
-        
-        // Forcer l'initialisation des proxies Hibernate et ajouter les données du professionnel
         if (consultation.getProfessionnel() != null) {
-            Hibernate.initialize(consultation.getProfessionnel());
             dto.setProfessionnel(toProfessionnelDto(consultation.getProfessionnel()));
         }
         
@@ -1,20 +1,46 @@
 package com.nfc4care.service;
 
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
 import com.nfc4care.repository.ProfessionnelRepository;
-import lombok.RequiredArgsConstructor;
+import com.nfc4care.security.ProfessionnelPrincipal;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.GuavaCacheMetrics;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.security.core.userdetails.UserDetailsService;
 import org.springframework.security.core.userdetails.UsernameNotFoundException;
 import org.springframework.stereotype.Service;
 
+import java.util.concurrent.TimeUnit;
+
 @Service
-@RequiredArgsConstructor
 @Slf4j
 public class CustomUserDetailsService implements UserDetailsService {
     
     private final ProfessionnelRepository professionnelRepository;
     
+    private final Cache<String, ProfessionnelPrincipal> principalCache;
+    
+    public CustomUserDetailsService(
+            ProfessionnelRepository professionnelRepository,
+            @Value("${spring.security.principal-cache.max-size:5000}") long maxSize,
+            @Value("${spring.security.principal-cache.ttl-seconds:600}") long ttlSeconds,
+            MeterRegistry meterRegistry) {
+        this.professionnelRepository = professionnelRepository;
+        this.principalCache = CacheBuilder.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(ttlSeconds, TimeUnit.SECONDS)
+                .recordStats()
+                .build();
+        GuavaCacheMetrics.monitor(meterRegistry, principalCache, "users.principal");
+    }
+    
+    /**
+     * Charge l'entité complète (mot de passe inclus) pour l'authentification par identifiants
+     */
     @Override
     public UserDetails loadUserByUsername(String email) throws UsernameNotFoundException {
         return professionnelRepository.findByEmail(email)
@@ -23,4 +49,36 @@ public class CustomUserDetailsService implements UserDetailsService {
                     return new UsernameNotFoundException("Utilisateur non trouvé avec l'email: " + email);
                 });
     }
-} 
\ No newline at end of file
+    
+    /**
+     * Charge le principal réduit aux autorités pour les requêtes authentifiées par token
+     * Mis en cache par email, invalidé par les mises à jour de profil et les révocations
+     */
+    public UserDetails loadPrincipalByUsername(String email) throws UsernameNotFoundException {
+        ProfessionnelPrincipal principal = principalCache.getIfPresent(email);
+        if (principal != null) {
+            return principal;
+        }
+        principal = professionnelRepository.findPrincipalByEmail(email)
+                .orElseThrow(() -> {
+                    log.error("Utilisateur non trouvé avec l'email: {}", email);
+                    return new UsernameNotFoundException("Utilisateur non trouvé avec l'email: " + email);
+                });
+        principalCache.put(email, principal);
+        return principal;
+    }
+    
+    /**
+     * Applique les invalidations locales et celles reçues des autres instances
+     */
+    @EventListener
+    public void onRevocation(TokenRevocationEvent event) {
+        switch (event.getType()) {
+            case USER, PRINCIPAL -> principalCache.invalidate(event.getKey());
+            case RESET -> principalCache.invalidateAll();
+            default -> {
+                // Les révocations de tokens individuels ne concernent pas ce cache
+            }
+        }
+    }
+}
@@ -19,6 +19,8 @@ public class DossierMedicalService {
     private final DossierMedicalRepository dossierMedicalRepository;
     private final PatientRepository patientRepository;
     private final ProfessionnelRepository professionnelRepository;
+    private final NfcLookupCache nfcLookupCache;
+    private final ExportCache exportCache;
 
     public Optional<DossierMedical> getById(Long id) {
         return dossierMedicalRepository.findById(id);
@@ -32,18 +34,28 @@ public class DossierMedicalService {
     public DossierMedical create(DossierMedicalDto dto) {
         DossierMedical dossier = new DossierMedical();
         mapDtoToEntity(dto, dossier);
-        return dossierMedicalRepository.save(dossier);
+        DossierMedical saved = dossierMedicalRepository.save(dossier);
+        nfcLookupCache.invalidatePatient(saved.getPatient().getId());
+        exportCache.invalidatePatient(saved.getPatient().getId());
+        return saved;
     }
 
     @Transactional
     public DossierMedical update(Long id, DossierMedicalDto dto) {
         DossierMedical dossier = dossierMedicalRepository.findById(id).orElseThrow();
         mapDtoToEntity(dto, dossier);
-        return dossierMedicalRepository.save(dossier);
+        DossierMedical saved = dossierMedicalRepository.save(dossier);
+        exportCache.invalidatePatient(saved.getPatient().getId());
+        return saved;
     }
 
     @Transactional
     public void delete(Long id) {
+        dossierMedicalRepository.findById(id)
+                .ifPresent(dossier -> {
+                    nfcLookupCache.invalidatePatient(dossier.getPatient().getId());
+                    exportCache.invalidatePatient(dossier.getPatient().getId());
+                });
         dossierMedicalRepository.deleteById(id);
     }
 
@@ -0,0 +1,227 @@
+package com.nfc4care.service;
+
+import com.nfc4care.dto.ConsultationExportVersion;
+import com.nfc4care.dto.ExportFormat;
+import com.nfc4care.entity.DossierMedical;
+import com.nfc4care.entity.Patient;
+import com.nfc4care.repository.ConsultationRepository;
+import com.nfc4care.util.HashUtil;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.channels.FileChannel;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Cache disque, borné en taille et évincé LRU, des exports déjà rendus
+ * La clé couvre le contenu exporté : champs du patient, hash et date de modification du dossier,
+ * version des consultations du dossier (nombre, identifiant et date de modification max) et format.
+ * Les écritures sur le patient, son dossier ou ses consultations suppriment en plus les entrées du patient
+ * et avancent son époque d'invalidation : un rendu commencé avant n'est jamais inséré.
+ */
+@Component
+@Slf4j
+public class ExportCache {
+
+    private static final String FILE_SUFFIX = ".export";
+    private static final int EPOCH_STRIPES = 1024;
+
+    private final ConsultationRepository consultationRepository;
+    private final Path directory;
+    private final long maxBytes;
+    private final Counter hits;
+    private final Counter misses;
+
+    // Ordre d'accès : le premier élément est le moins récemment utilisé
+    private final LinkedHashMap<String, CachedExport> entries = new LinkedHashMap<>(16, 0.75f, true);
+    private long totalBytes;
+    // Époques d'invalidation par groupe de patients (borné) ; un partage de groupe ne cause qu'un rendu non mis en cache
+    private final long[] invalidationEpochs = new long[EPOCH_STRIPES];
+
+    public ExportCache(
+            ConsultationRepository consultationRepository,
+            @Value("${exports.cache.directory:}") String directory,
+            @Value("${exports.cache.max-bytes:536870912}") long maxBytes,
+            MeterRegistry meterRegistry) throws IOException {
+        this.consultationRepository = consultationRepository;
+        this.directory = directory.isBlank()
+                ? Files.createTempDirectory("nfc4care-export-cache")
+                : Files.createDirectories(Paths.get(directory));
+        this.maxBytes = maxBytes;
+        this.hits = Counter.builder("exports.cache.hits").description("Exports servis depuis le cache disque").register(meterRegistry);
+        this.misses = Counter.builder("exports.cache.misses").description("Exports rendus faute d'entrée en cache").register(meterRegistry);
+        Gauge.builder("exports.cache.size", this, ExportCache::getTotalBytes)
+                .description("Taille des exports en cache")
+                .baseUnit("bytes")
+                .register(meterRegistry);
+        deleteLeftovers();
+        log.info("Cache des exports initialisé (taille max: {} Mo, répertoire: {})", maxBytes / (1024 * 1024), this.directory);
+    }
+
+    /**
+     * Rendu d'un export dans un flux
+     */
+    @FunctionalInterface
+    public interface ExportRenderer {
+        void render(OutputStream outputStream) throws Exception;
+    }
+
+    /**
+     * Clé de contenu d'un export : change dès que le patient, le dossier, ses consultations ou le format change
+     * (à calculer avant le rendu)
+     */
+    public String key(Patient patient, DossierMedical dossier, ExportFormat format) {
+        ConsultationExportVersion consultations = dossier != null
+                ? consultationRepository.findExportVersion(dossier.getId())
+                : null;
+        String content = String.join("|",
+                String.valueOf(patient.getId()), patient.getNumeroDossier(), patient.getNom(), patient.getPrenom(),
+                String.valueOf(patient.getDateNaissance()), patient.getSexe(), patient.getAdresse(),
+                patient.getTelephone(), String.valueOf(patient.getEmail()), patient.getNumeroSecuriteSociale(),
+                String.valueOf(patient.getGroupeSanguin()),
+                dossier != null ? dossier.getId() + ":" + dossier.getHashContenu() + ":" + dossier.getDateModification() : "-",
+                consultations != null
+                        ? consultations.count() + ":" + consultations.maxId() + ":" + consultations.lastModification()
+                        : "-",
+                format.name());
+        return HashUtil.generateSHA256Hash(content);
+    }
+
+    /**
+     * Ouvre l'export en cache, rendu et inséré s'il est absent
+     * Le canal est ouvert sous le verrou du cache : une éviction ou une invalidation ultérieure supprime le fichier
+     * sans interrompre la lecture (le descripteur ouvert garde le contenu). L'appelant ferme le canal.
+     */
+    public FileChannel openOrRender(String key, Long patientId, ExportRenderer renderer) throws Exception {
+        long epoch;
+        synchronized (entries) {
+            CachedExport cached = entries.get(key);
+            if (cached != null) {
+                try {
+                    FileChannel channel = FileChannel.open(cached.file(), StandardOpenOption.READ);
+                    hits.increment();
+                    return channel;
+                } catch (NoSuchFileException e) {
+                    // Supprimé hors du cache : l'entrée est retirée et l'export rendu à nouveau
+                    entries.remove(key);
+                    totalBytes -= cached.size();
+                }
+            }
+            epoch = invalidationEpochs[stripe(patientId)];
+        }
+        misses.increment();
+
+        // Rendu hors verrou dans un fichier temporaire, puis déplacement atomique vers un nom propre à ce rendu
+        String renderId = UUID.randomUUID().toString();
+        Path temporary = directory.resolve(renderId + ".tmp");
+        Path file = directory.resolve(key + "-" + renderId + FILE_SUFFIX);
+        try {
+            try (OutputStream outputStream = new BufferedOutputStream(Files.newOutputStream(temporary))) {
+                renderer.render(outputStream);
+            }
+            Files.move(temporary, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(temporary);
+        }
+
+        long size = Files.size(file);
+        synchronized (entries) {
+            FileChannel channel = FileChannel.open(file, StandardOpenOption.READ);
+            if (invalidationEpochs[stripe(patientId)] != epoch) {
+                // Invalidé pendant le rendu : le fichier sert cette requête mais n'est pas mis en cache
+                deleteQuietly(file);
+                return channel;
+            }
+            CachedExport previous = entries.put(key, new CachedExport(file, size, patientId));
+            if (previous != null) {
+                totalBytes -= previous.size();
+                deleteQuietly(previous.file());
+            }
+            totalBytes += size;
+            evictIfNeeded(key);
+            return channel;
+        }
+    }
+
+    /**
+     * Supprime les exports d'un patient et avance son époque (écriture sur le patient, son dossier ou ses consultations)
+     */
+    public void invalidatePatient(Long patientId) {
+        List<Path> removed = new ArrayList<>();
+        synchronized (entries) {
+            invalidationEpochs[stripe(patientId)]++;
+            Iterator<Map.Entry<String, CachedExport>> iterator = entries.entrySet().iterator();
+            while (iterator.hasNext()) {
+                CachedExport cached = iterator.next().getValue();
+                if (cached.patientId().equals(patientId)) {
+                    totalBytes -= cached.size();
+                    removed.add(cached.file());
+                    iterator.remove();
+                }
+            }
+        }
+        removed.forEach(this::deleteQuietly);
+    }
+
+    long getTotalBytes() {
+        synchronized (entries) {
+            return totalBytes;
+        }
+    }
+
+    private static int stripe(Long patientId) {
+        return Math.floorMod(patientId.hashCode(), EPOCH_STRIPES);
+    }
+
+    private void evictIfNeeded(String keep) {
+        Iterator<Map.Entry<String, CachedExport>> iterator = entries.entrySet().iterator();
+        while (totalBytes > maxBytes && iterator.hasNext()) {
+            Map.Entry<String, CachedExport> eldest = iterator.next();
+            if (eldest.getKey().equals(keep)) {
+                continue;
+            }
+            totalBytes -= eldest.getValue().size();
+            // Un téléchargement en cours garde son descripteur ouvert : la suppression ne l'interrompt pas
+            deleteQuietly(eldest.getValue().file());
+            iterator.remove();
+        }
+    }
+
+    private void deleteLeftovers() throws IOException {
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(directory, "*{" + FILE_SUFFIX + ",.tmp}")) {
+            for (Path file : files) {
+                deleteQuietly(file);
+            }
+        }
+    }
+
+    private void deleteQuietly(Path file) {
+        try {
+            Files.deleteIfExists(file);
+        } catch (IOException e) {
+            log.warn("Impossible de supprimer l'export en cache {}: {}", file, e.getMessage());
+        }
+    }
+
+    private record CachedExport(Path file, long size, Long patientId) {
+    }
+}
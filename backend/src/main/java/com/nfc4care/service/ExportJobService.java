@@ -0,0 +1,260 @@
+package com.nfc4care.service;
+
+import com.nfc4care.dto.ExportFormat;
+import com.nfc4care.dto.ExportJobDto;
+import com.nfc4care.entity.DossierMedical;
+import com.nfc4care.entity.Patient;
+import com.nfc4care.exception.ExportQuotaExceededException;
+import com.nfc4care.exception.ResourceNotFoundException;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.LocalDateTime;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Tâches d'export asynchrones : rendu PDF/Excel dans des fichiers temporaires par un pool borné,
+ * puis téléchargement par le client. Quota de tâches en cours par utilisateur et purge après TTL.
+ * L'état des tâches et leurs fichiers sont locaux à l'instance : avec plusieurs répliques, le répartiteur
+ * doit router les requêtes /exports d'un utilisateur vers la même instance (affinité de session),
+ * sinon le suivi ou le téléchargement d'une tâche créée ailleurs répond 404.
+ */
+@Service
+@Slf4j
+public class ExportJobService {
+
+    public enum Status { QUEUED, RUNNING, DONE, FAILED }
+
+    private static final String RENDER_FAILED_MESSAGE = "Erreur lors de la génération de l'export";
+
+    private final ExportService exportService;
+    private final PatientService patientService;
+    private final DossierMedicalService dossierMedicalService;
+    private final MeterRegistry meterRegistry;
+    private final int maxJobsPerUser;
+    private final long ttlMinutes;
+    private final Path directory;
+    private final ThreadPoolExecutor executor;
+    private final Map<String, ExportJob> jobs = new ConcurrentHashMap<>();
+
+    public ExportJobService(
+            ExportService exportService,
+            PatientService patientService,
+            DossierMedicalService dossierMedicalService,
+            MeterRegistry meterRegistry,
+            @Value("${exports.jobs.threads:2}") int threads,
+            @Value("${exports.jobs.queue-capacity:50}") int queueCapacity,
+            @Value("${exports.jobs.max-per-user:3}") int maxJobsPerUser,
+            @Value("${exports.jobs.ttl-minutes:60}") long ttlMinutes,
+            @Value("${exports.jobs.directory:}") String directory) throws IOException {
+        this.exportService = exportService;
+        this.patientService = patientService;
+        this.dossierMedicalService = dossierMedicalService;
+        this.meterRegistry = meterRegistry;
+        this.maxJobsPerUser = maxJobsPerUser;
+        this.ttlMinutes = ttlMinutes;
+        this.directory = directory.isBlank()
+                ? Files.createTempDirectory("nfc4care-exports")
+                : Files.createDirectories(Paths.get(directory));
+
+        // Pool dédié : le rendu des exports ne concurrence pas l'exécuteur @Async par défaut
+        AtomicInteger counter = new AtomicInteger();
+        this.executor = new ThreadPoolExecutor(threads, threads, 60, TimeUnit.SECONDS,
+                new ArrayBlockingQueue<>(queueCapacity),
+                runnable -> {
+                    Thread thread = new Thread(runnable, "export-job-" + counter.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                },
+                new ThreadPoolExecutor.AbortPolicy());
+
+        Gauge.builder("exports.queue.depth", executor, pool -> pool.getQueue().size())
+                .description("Tâches d'export en attente")
+                .register(meterRegistry);
+        Gauge.builder("exports.jobs.running", executor, ThreadPoolExecutor::getActiveCount)
+                .description("Tâches d'export en cours de rendu")
+                .register(meterRegistry);
+        log.info("Tâches d'export initialisées (threads: {}, file: {}, répertoire: {})", threads, queueCapacity, this.directory);
+    }
+
+    /**
+     * Soumet un export
+     * @throws ExportQuotaExceededException si l'utilisateur a trop de tâches en cours ou si la file est pleine
+     */
+    public ExportJobDto submit(String owner, Long patientId, ExportFormat format) {
+        Patient patient = patientService.getPatientById(patientId)
+                .orElseThrow(() -> new ResourceNotFoundException("Patient avec l'ID " + patientId + " non trouvé"));
+
+        ExportJob job = new ExportJob(UUID.randomUUID().toString(), owner, patient.getId(), format);
+        // Vérification du quota et enregistrement atomiques
+        synchronized (jobs) {
+            long pending = jobs.values().stream()
+                    .filter(existing -> existing.owner.equals(owner)
+                            && (existing.status == Status.QUEUED || existing.status == Status.RUNNING))
+                    .count();
+            if (pending >= maxJobsPerUser) {
+                throw new ExportQuotaExceededException("Nombre maximal d'exports en cours atteint (" + maxJobsPerUser + ")");
+            }
+            jobs.put(job.id, job);
+        }
+        try {
+            executor.execute(() -> render(job));
+        } catch (RejectedExecutionException e) {
+            jobs.remove(job.id);
+            throw new ExportQuotaExceededException("File d'attente des exports pleine, réessayez plus tard");
+        }
+        log.info("Export {} soumis par {} pour le patient {} ({})", job.id, owner, patientId, format);
+        return job.toDto();
+    }
+
+    public Optional<ExportJobDto> getJob(String owner, String jobId) {
+        return findOwned(owner, jobId).map(ExportJob::toDto);
+    }
+
+    /**
+     * Fichier rendu d'une tâche terminée appartenant à l'utilisateur
+     */
+    public Optional<ExportArtifact> getArtifact(String owner, String jobId) {
+        return findOwned(owner, jobId)
+                .filter(job -> job.status == Status.DONE)
+                .map(job -> new ExportArtifact(job.file, job.fileName, job.format));
+    }
+
+    /**
+     * Supprime les tâches terminées depuis plus que le TTL et leurs fichiers
+     */
+    @Scheduled(fixedDelayString = "${exports.jobs.cleanup-ms:60000}")
+    public void purgeExpiredJobs() {
+        LocalDateTime cutoff = LocalDateTime.now().minusMinutes(ttlMinutes);
+        int purged = 0;
+        for (ExportJob job : jobs.values()) {
+            if (job.finishedAt != null && job.finishedAt.isBefore(cutoff)) {
+                jobs.remove(job.id);
+                deleteQuietly(job.file);
+                purged++;
+            }
+        }
+        if (purged > 0) {
+            log.info("🧹 {} exports expirés supprimés", purged);
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+        jobs.values().forEach(job -> deleteQuietly(job.file));
+    }
+
+    private Optional<ExportJob> findOwned(String owner, String jobId) {
+        return Optional.ofNullable(jobs.get(jobId)).filter(job -> job.owner.equals(owner));
+    }
+
+    private void render(ExportJob job) {
+        job.status = Status.RUNNING;
+        Timer.Sample sample = Timer.start(meterRegistry);
+        String outcome = "success";
+        try {
+            Patient patient = patientService.getPatientById(job.patientId)
+                    .orElseThrow(() -> new ResourceNotFoundException("Patient avec l'ID " + job.patientId + " non trouvé"));
+            DossierMedical dossier = dossierMedicalService.getByPatientId(job.patientId).orElse(null);
+            Path file = directory.resolve(job.id + "." + job.format.getExtension());
+            try (OutputStream outputStream = new BufferedOutputStream(Files.newOutputStream(file))) {
+                if (job.format == ExportFormat.PDF) {
+                    exportService.exportToPDF(patient, dossier, outputStream);
+                } else {
+                    exportService.exportToExcel(patient, dossier, outputStream);
+                }
+            }
+            job.file = file;
+            job.fileName = "dossier_" + patient.getNumeroDossier() + "." + job.format.getExtension();
+            job.sizeBytes = Files.size(file);
+            job.status = Status.DONE;
+            log.info("✅ Export {} terminé ({} octets)", job.id, job.sizeBytes);
+        } catch (Exception e) {
+            outcome = "failure";
+            // Le détail (SQL, chemins) reste dans les logs, le client ne reçoit qu'un message générique
+            job.error = e instanceof ResourceNotFoundException ? e.getMessage() : RENDER_FAILED_MESSAGE;
+            job.status = Status.FAILED;
+            deleteQuietly(directory.resolve(job.id + "." + job.format.getExtension()));
+            log.error("❌ Erreur lors de l'export {}", job.id, e);
+        } finally {
+            job.finishedAt = LocalDateTime.now();
+            sample.stop(Timer.builder("exports.render")
+                    .description("Durée de rendu des exports asynchrones")
+                    .tag("format", job.format.name().toLowerCase())
+                    .tag("outcome", outcome)
+                    .register(meterRegistry));
+        }
+    }
+
+    private void deleteQuietly(Path file) {
+        if (file == null) {
+            return;
+        }
+        try {
+            Files.deleteIfExists(file);
+        } catch (IOException e) {
+            log.warn("Impossible de supprimer le fichier d'export {}: {}", file, e.getMessage());
+        }
+    }
+
+    /**
+     * Fichier prêt au téléchargement
+     */
+    public record ExportArtifact(Path file, String fileName, ExportFormat format) {
+    }
+
+    private static final class ExportJob {
+        final String id;
+        final String owner;
+        final Long patientId;
+        final ExportFormat format;
+        final LocalDateTime createdAt = LocalDateTime.now();
+        volatile Status status = Status.QUEUED;
+        volatile LocalDateTime finishedAt;
+        volatile Path file;
+        volatile String fileName;
+        volatile Long sizeBytes;
+        volatile String error;
+
+        ExportJob(String id, String owner, Long patientId, ExportFormat format) {
+            this.id = id;
+            this.owner = owner;
+            this.patientId = patientId;
+            this.format = format;
+        }
+
+        ExportJobDto toDto() {
+            return ExportJobDto.builder()
+                    .id(id)
+                    .patientId(patientId)
+                    .format(format)
+                    .status(status.name())
+                    .createdAt(createdAt)
+                    .finishedAt(finishedAt)
+                    .sizeBytes(sizeBytes)
+                    .error(error)
+                    .build();
+        }
+    }
+}
@@ -12,8 +12,15 @@ import com.itextpdf.text.Phrase;
 import com.itextpdf.text.pdf.PdfPCell;
 import com.itextpdf.text.pdf.PdfPTable;
 import com.itextpdf.text.pdf.PdfWriter;
+import com.nfc4care.dto.ConsultationSummaryRow;
+import com.nfc4care.entity.Consultation;
 import com.nfc4care.entity.DossierMedical;
 import com.nfc4care.entity.Patient;
+import com.nfc4care.entity.Professionnel;
+import com.nfc4care.exception.ResourceNotFoundException;
+import com.nfc4care.repository.ConsultationRepository;
+import com.nfc4care.repository.ProfessionnelRepository;
+import jakarta.persistence.EntityManager;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.apache.poi.ss.usermodel.CellStyle;
@@ -24,12 +31,20 @@ import org.apache.poi.ss.usermodel.Row;
 import org.apache.poi.ss.usermodel.Sheet;
 import org.apache.poi.ss.usermodel.Workbook;
 import org.apache.poi.ss.usermodel.Cell;
-import org.apache.poi.xssf.usermodel.XSSFWorkbook;
+import org.apache.poi.xssf.streaming.SXSSFWorkbook;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
-import java.io.ByteArrayOutputStream;
 import java.io.IOException;
+import java.io.OutputStream;
+import java.time.LocalDate;
 import java.time.format.DateTimeFormatter;
+import java.util.Iterator;
+import java.util.List;
+import java.util.function.Function;
+import java.util.stream.Stream;
 
 /**
  * Service pour l'export de dossiers médicaux en PDF et Excel
@@ -40,69 +55,158 @@ import java.time.format.DateTimeFormatter;
 public class ExportService {
 
     private static final DateTimeFormatter DATE_FORMATTER = DateTimeFormatter.ofPattern("dd/MM/yyyy");
+    private static final DateTimeFormatter DATE_TIME_FORMATTER = DateTimeFormatter.ofPattern("dd/MM/yyyy HH:mm");
+
+    // Lignes gardées en mémoire par feuille SXSSF, les précédentes étant écrites dans un fichier temporaire
+    private static final int EXCEL_ROW_WINDOW = 100;
+    // Consultations lues par requête pour l'historique du PDF
+    static final int PDF_HISTORY_PAGE_SIZE = 500;
+    private static final int COHORT_CLEAR_INTERVAL = 500;
+    private static final int MAX_CELL_LENGTH = 32767;
+    private static final int LABEL_COLUMN_WIDTH = 28 * 256;
+    private static final int VALUE_COLUMN_WIDTH = 80 * 256;
+
+    private static final String[] COHORT_PATIENT_COLUMNS = {
+            "Numéro de dossier", "Nom", "Prénom", "Date de naissance", "Sexe", "Téléphone", "Numéro SS"};
+    private static final int[] COHORT_PATIENT_WIDTHS = {
+            18 * 256, 20 * 256, 20 * 256, 16 * 256, 6 * 256, 16 * 256, 20 * 256};
+    private static final String[] COHORT_CONSULTATION_COLUMNS = {
+            "Numéro de dossier", "Patient", "Date", "Motif", "Diagnostic", "Traitement prescrit", "Prochain RDV"};
+    private static final int[] COHORT_CONSULTATION_WIDTHS = {
+            18 * 256, 30 * 256, 17 * 256, 40 * 256, 40 * 256, 40 * 256, 17 * 256};
+
+    // Modèle PDF partagé par tous les rendus : polices, libellés et cellules d'en-tête ne sont jamais modifiés
+    // (PdfPTable.addCell copie la cellule fournie), seules les cellules de valeur sont créées par document
+    private static final String PDF_TITLE = "DOSSIER MÉDICAL PATIENT";
+    private static final Font PDF_TITLE_FONT = new Font(Font.FontFamily.HELVETICA, 18, Font.BOLD);
+    private static final Font PDF_SECTION_FONT = new Font(Font.FontFamily.HELVETICA, 14, Font.BOLD);
+    private static final Font PDF_LABEL_FONT = new Font(Font.FontFamily.HELVETICA, 10, Font.BOLD);
+    private static final Font PDF_VALUE_FONT = new Font(Font.FontFamily.HELVETICA, 10, Font.NORMAL);
+    private static final float[] PDF_FIELD_WIDTHS = {2f, 3f};
+    private static final float[] PDF_HISTORY_WIDTHS = {1.3f, 2.5f, 2.5f, 1.7f};
+
+    private static final List<PdfField<Patient>> PDF_PATIENT_FIELDS = List.of(
+            PdfField.of("Numéro de dossier:", Patient::getNumeroDossier),
+            PdfField.of("Nom:", Patient::getNom),
+            PdfField.of("Prénom:", Patient::getPrenom),
+            PdfField.of("Date de naissance:", patient -> patient.getDateNaissance().format(DATE_FORMATTER)),
+            PdfField.of("Sexe:", Patient::getSexe),
+            PdfField.of("Groupe sanguin:", Patient::getGroupeSanguin),
+            PdfField.of("Téléphone:", Patient::getTelephone),
+            PdfField.of("Email:", Patient::getEmail),
+            PdfField.of("Numéro Sécurité Sociale:", Patient::getNumeroSecuriteSociale));
+
+    private static final List<PdfField<DossierMedical>> PDF_DOSSIER_FIELDS = List.of(
+            PdfField.of("Antécédents médicaux:", DossierMedical::getAntecedentsMedicaux),
+            PdfField.of("Antécédents chirurgicaux:", DossierMedical::getAntecedentsChirurgicaux),
+            PdfField.of("Antécédents familiaux:", DossierMedical::getAntecedentsFamiliaux),
+            PdfField.of("Traitements en cours:", DossierMedical::getTraitementsEnCours),
+            PdfField.of("Allergies:", DossierMedical::getAllergies),
+            PdfField.of("Observations:", DossierMedical::getObservationsGenerales));
+
+    private static final List<PdfPCell> PDF_HISTORY_HEADER_CELLS = List.of(
+            pdfLabelCell("Date", PDF_LABEL_FONT, BaseColor.LIGHT_GRAY),
+            pdfLabelCell("Motif", PDF_LABEL_FONT, BaseColor.LIGHT_GRAY),
+            pdfLabelCell("Diagnostic", PDF_LABEL_FONT, BaseColor.LIGHT_GRAY),
+            pdfLabelCell("Professionnel", PDF_LABEL_FONT, BaseColor.LIGHT_GRAY));
+
+    private final ConsultationRepository consultationRepository;
+    private final ProfessionnelRepository professionnelRepository;
+    private final EntityManager entityManager;
 
     /**
-     * Génère un export PDF du dossier médical d'un patient
+     * Génère un export PDF du dossier médical d'un patient directement dans le flux fourni
+     * Le flux n'est pas fermé (réponse HTTP gérée par le conteneur)
      */
-    public ByteArrayOutputStream exportToPDF(Patient patient, DossierMedical dossier) throws DocumentException, IOException {
+    public void exportToPDF(Patient patient, DossierMedical dossier, OutputStream outputStream) throws DocumentException, IOException {
         log.info("Génération du PDF pour le patient: {}", patient.getNumeroDossier());
 
-        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
         Document document = new Document(PageSize.A4, 50, 50, 50, 50);
-        PdfWriter.getInstance(document, outputStream);
+        PdfWriter writer = PdfWriter.getInstance(document, outputStream);
+        writer.setCloseStream(false);
         document.open();
 
         // En-tête
-        Font titleFont = new Font(Font.FontFamily.HELVETICA, 18, Font.BOLD);
-        Paragraph title = new Paragraph("DOSSIER MÉDICAL PATIENT", titleFont);
+        Paragraph title = new Paragraph(PDF_TITLE, PDF_TITLE_FONT);
         title.setAlignment(Element.ALIGN_CENTER);
         document.add(title);
-        document.add(new Paragraph(" "));
+        document.add(Chunk.NEWLINE);
 
         // Informations patient
-        Font sectionFont = new Font(Font.FontFamily.HELVETICA, 14, Font.BOLD);
-        document.add(new Paragraph("INFORMATIONS PATIENT", sectionFont));
-
-        PdfPTable patientTable = new PdfPTable(2);
+        document.add(new Paragraph("INFORMATIONS PATIENT", PDF_SECTION_FONT));
+        PdfPTable patientTable = new PdfPTable(PDF_FIELD_WIDTHS);
         patientTable.setWidthPercentage(100);
-        addTableRow(patientTable, "Numéro de dossier:", patient.getNumeroDossier());
-        addTableRow(patientTable, "Nom:", patient.getNom());
-        addTableRow(patientTable, "Prénom:", patient.getPrenom());
-        addTableRow(patientTable, "Date de naissance:", patient.getDateNaissance().format(DATE_FORMATTER));
-        addTableRow(patientTable, "Sexe:", patient.getSexe());
-        addTableRow(patientTable, "Groupe sanguin:", patient.getGroupeSanguin());
-        addTableRow(patientTable, "Téléphone:", patient.getTelephone());
-        addTableRow(patientTable, "Email:", patient.getEmail());
-        addTableRow(patientTable, "Numéro Sécurité Sociale:", patient.getNumeroSecuriteSociale());
+        for (PdfField<Patient> field : PDF_PATIENT_FIELDS) {
+            patientTable.addCell(field.labelCell());
+            patientTable.addCell(new PdfPCell(new Phrase(valueOrDash(field.value().apply(patient)), PDF_VALUE_FONT)));
+        }
         document.add(patientTable);
-        document.add(new Paragraph(" "));
+        document.add(Chunk.NEWLINE);
 
         // Dossier médical
         if (dossier != null) {
-            document.add(new Paragraph("DOSSIER MÉDICAL", sectionFont));
-
-            addTableRow(document, "Antécédents médicaux:", dossier.getAntecedentsMedicaux());
-            addTableRow(document, "Antécédents chirurgicaux:", dossier.getAntecedentsChirurgicaux());
-            addTableRow(document, "Antécédents familiaux:", dossier.getAntecedentsFamiliaux());
-            addTableRow(document, "Traitements en cours:", dossier.getTraitementsEnCours());
-            addTableRow(document, "Allergies:", dossier.getAllergies());
-            addTableRow(document, "Observations:", dossier.getObservationsGenerales());
+            document.add(new Paragraph("DOSSIER MÉDICAL", PDF_SECTION_FONT));
+            for (PdfField<DossierMedical> field : PDF_DOSSIER_FIELDS) {
+                Paragraph paragraph = new Paragraph();
+                paragraph.add(new Chunk(field.label(), PDF_LABEL_FONT));
+                paragraph.add(new Chunk(" " + valueOrDash(field.value().apply(dossier)), PDF_VALUE_FONT));
+                document.add(paragraph);
+            }
+            document.add(Chunk.NEWLINE);
+        }
+
+        // Historique des consultations (projection légère, plus récentes d'abord), lu par pages keyset :
+        // le tableau, marqué incomplet, est écrit dans le document après chaque page puis vidé
+        document.add(new Paragraph("HISTORIQUE DES CONSULTATIONS", PDF_SECTION_FONT));
+        Pageable limit = PageRequest.of(0, PDF_HISTORY_PAGE_SIZE);
+        List<ConsultationSummaryRow> consultations = consultationRepository.findPatientSummaries(patient.getId(), limit);
+        int written = 0;
+        if (consultations.isEmpty()) {
+            document.add(new Paragraph("Aucune consultation enregistrée", PDF_VALUE_FONT));
+        } else {
+            PdfPTable historyTable = new PdfPTable(PDF_HISTORY_WIDTHS);
+            historyTable.setWidthPercentage(100);
+            historyTable.setSpacingBefore(5);
+            historyTable.setHeaderRows(1);
+            historyTable.setComplete(false);
+            for (PdfPCell headerCell : PDF_HISTORY_HEADER_CELLS) {
+                historyTable.addCell(headerCell);
+            }
+            while (true) {
+                for (ConsultationSummaryRow consultation : consultations) {
+                    historyTable.addCell(new Phrase(consultation.dateConsultation().format(DATE_TIME_FORMATTER), PDF_VALUE_FONT));
+                    historyTable.addCell(new Phrase(valueOrDash(consultation.motifConsultation()), PDF_VALUE_FONT));
+                    historyTable.addCell(new Phrase(valueOrDash(consultation.diagnostic()), PDF_VALUE_FONT));
+                    historyTable.addCell(new Phrase(consultation.professionnelPrenom() + " " + consultation.professionnelNom(), PDF_VALUE_FONT));
+                }
+                written += consultations.size();
+                document.add(historyTable);
+                if (consultations.size() < PDF_HISTORY_PAGE_SIZE) {
+                    break;
+                }
+                ConsultationSummaryRow last = consultations.get(consultations.size() - 1);
+                consultations = consultationRepository.findPatientSummariesAfter(
+                        patient.getId(), last.dateConsultation(), last.id(), limit);
+            }
+            historyTable.setComplete(true);
+            document.add(historyTable);
         }
 
         document.close();
-        log.info("PDF généré avec succès pour le patient: {}", patient.getNumeroDossier());
-        return outputStream;
+        log.info("PDF généré avec succès pour le patient: {} ({} consultations)", patient.getNumeroDossier(), written);
     }
 
     /**
-     * Génère un export Excel du dossier médical d'un patient
+     * Génère un export Excel du dossier médical d'un patient directement dans le flux fourni
      */
-    public ByteArrayOutputStream exportToExcel(Patient patient, DossierMedical dossier) throws IOException {
+    public void exportToExcel(Patient patient, DossierMedical dossier, OutputStream outputStream) throws IOException {
         log.info("Génération du Excel pour le patient: {}", patient.getNumeroDossier());
 
-        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
-        Workbook workbook = new XSSFWorkbook();
+        SXSSFWorkbook workbook = newStreamingWorkbook();
         Sheet sheet = workbook.createSheet("Dossier Médical");
+        // Largeurs fixes (en 1/256 de caractère) : autoSizeColumn mesure chaque cellule via AWT
+        sheet.setColumnWidth(0, LABEL_COLUMN_WIDTH);
+        sheet.setColumnWidth(1, VALUE_COLUMN_WIDTH);
 
         // Style en-tête
         CellStyle headerStyle = createHeaderStyle(workbook);
@@ -144,30 +248,89 @@ public class ExportService {
             addExcelRow(sheet, rowNum++, "Observations:", dossier.getObservationsGenerales(), headerStyle);
         }
 
-        // Auto-ajuster les colonnes
-        sheet.autoSizeColumn(0);
-        sheet.autoSizeColumn(1);
-
-        workbook.write(outputStream);
-        workbook.close();
+        writeAndDispose(workbook, outputStream);
         log.info("Excel généré avec succès pour le patient: {}", patient.getNumeroDossier());
-        return outputStream;
     }
 
-    private void addTableRow(PdfPTable table, String label, String value) {
-        Font boldFont = new Font(Font.FontFamily.HELVETICA, 10, Font.BOLD);
-        PdfPCell labelCell = new PdfPCell(new Phrase(label, boldFont));
-        labelCell.setBackgroundColor(BaseColor.LIGHT_GRAY);
-        table.addCell(labelCell);
-        table.addCell(new PdfPCell(new Phrase(value != null ? value : "-")));
+    /**
+     * Professionnel d'un export de cohorte, résolu avant l'écriture de la réponse
+     */
+    public Professionnel getCohortProfessionnel(Long professionnelId) {
+        return professionnelRepository.findById(professionnelId)
+                .orElseThrow(() -> new ResourceNotFoundException("Professionnel avec l'ID " + professionnelId + " non trouvé"));
     }
 
-    private void addTableRow(Document document, String label, String value) throws DocumentException {
-        Font boldFont = new Font(Font.FontFamily.HELVETICA, 10, Font.BOLD);
-        Paragraph p = new Paragraph();
-        p.add(new Chunk(label, boldFont));
-        p.add(new Chunk(" " + (value != null ? value : "-")));
-        document.add(p);
+    /**
+     * Exporte dans un seul classeur les patients vus par un professionnel sur une période et leurs consultations
+     * Les consultations sont lues depuis un curseur serveur et écrites au fil de l'eau : mémoire bornée
+     * par la fenêtre de lignes SXSSF quel que soit le volume
+     */
+    @Transactional(readOnly = true)
+    public void exportCohortToExcel(Professionnel professionnel, LocalDate from, LocalDate to, OutputStream outputStream) throws IOException {
+        if (from.isAfter(to)) {
+            throw new IllegalArgumentException("La date de début de la cohorte est postérieure à la date de fin");
+        }
+        Long professionnelId = professionnel.getId();
+        log.info("Génération du Excel de cohorte pour le professionnel {} du {} au {}", professionnel.getEmail(), from, to);
+
+        SXSSFWorkbook workbook = newStreamingWorkbook();
+        CellStyle headerStyle = createHeaderStyle(workbook);
+        Sheet patientsSheet = workbook.createSheet("Patients");
+        Sheet consultationsSheet = workbook.createSheet("Consultations");
+        writeHeaderRow(patientsSheet, COHORT_PATIENT_COLUMNS, COHORT_PATIENT_WIDTHS, headerStyle);
+        writeHeaderRow(consultationsSheet, COHORT_CONSULTATION_COLUMNS, COHORT_CONSULTATION_WIDTHS, headerStyle);
+
+        int patientRow = 1;
+        int consultationRow = 1;
+        Long currentPatientId = null;
+        try (Stream<Consultation> consultations = consultationRepository.streamByProfessionnelAndPeriod(
+                professionnelId, from.atStartOfDay(), to.plusDays(1).atStartOfDay())) {
+            Iterator<Consultation> iterator = consultations.iterator();
+            while (iterator.hasNext()) {
+                Consultation consultation = iterator.next();
+                Patient patient = consultation.getDossierMedical().getPatient();
+                // Consultations triées par patient : une ligne patient à chaque changement
+                if (!patient.getId().equals(currentPatientId)) {
+                    currentPatientId = patient.getId();
+                    writeRow(patientsSheet.createRow(patientRow++),
+                            patient.getNumeroDossier(), patient.getNom(), patient.getPrenom(),
+                            patient.getDateNaissance().format(DATE_FORMATTER), patient.getSexe(),
+                            patient.getTelephone(), patient.getNumeroSecuriteSociale());
+                }
+                writeRow(consultationsSheet.createRow(consultationRow++),
+                        patient.getNumeroDossier(), patient.getNom() + " " + patient.getPrenom(),
+                        consultation.getDateConsultation().format(DATE_TIME_FORMATTER),
+                        consultation.getMotifConsultation(), consultation.getDiagnostic(),
+                        consultation.getTraitementPrescrit(),
+                        consultation.getProchainRdv() != null ? consultation.getProchainRdv().format(DATE_TIME_FORMATTER) : null);
+                if (consultationRow % COHORT_CLEAR_INTERVAL == 0) {
+                    entityManager.clear();
+                }
+            }
+        }
+
+        writeAndDispose(workbook, outputStream);
+        log.info("Excel de cohorte généré: {} patients, {} consultations", patientRow - 1, consultationRow - 1);
+    }
+
+    private static String valueOrDash(String value) {
+        return value != null ? value : "-";
+    }
+
+    private static PdfPCell pdfLabelCell(String label, Font font, BaseColor background) {
+        PdfPCell cell = new PdfPCell(new Phrase(label, font));
+        cell.setBackgroundColor(background);
+        return cell;
+    }
+
+    /**
+     * Champ du modèle PDF : libellé (et sa cellule, construite une fois) et extraction de la valeur
+     */
+    private record PdfField<T>(String label, PdfPCell labelCell, Function<T, String> value) {
+
+        static <T> PdfField<T> of(String label, Function<T, String> value) {
+            return new PdfField<>(label, pdfLabelCell(label, PDF_LABEL_FONT, BaseColor.LIGHT_GRAY), value);
+        }
     }
 
     private CellStyle createHeaderStyle(Workbook workbook) {
@@ -182,6 +345,43 @@ public class ExportService {
         return style;
     }
 
+    private SXSSFWorkbook newStreamingWorkbook() {
+        SXSSFWorkbook workbook = new SXSSFWorkbook(EXCEL_ROW_WINDOW);
+        workbook.setCompressTempFiles(true);
+        return workbook;
+    }
+
+    private void writeAndDispose(SXSSFWorkbook workbook, OutputStream outputStream) throws IOException {
+        try {
+            workbook.write(outputStream);
+        } finally {
+            workbook.dispose();
+            workbook.close();
+        }
+    }
+
+    private void writeHeaderRow(Sheet sheet, String[] columns, int[] widths, CellStyle headerStyle) {
+        Row row = sheet.createRow(0);
+        for (int i = 0; i < columns.length; i++) {
+            sheet.setColumnWidth(i, widths[i]);
+            Cell cell = row.createCell(i);
+            cell.setCellValue(columns[i]);
+            cell.setCellStyle(headerStyle);
+        }
+        sheet.createFreezePane(0, 1);
+    }
+
+    private void writeRow(Row row, String... values) {
+        for (int i = 0; i < values.length; i++) {
+            String value = values[i];
+            // Limite d'Excel par cellule
+            if (value != null && value.length() > MAX_CELL_LENGTH) {
+                value = value.substring(0, MAX_CELL_LENGTH);
+            }
+            row.createCell(i).setCellValue(value != null ? value : "-");
+        }
+    }
+
     private void addExcelRow(Sheet sheet, int rowNum, String label, String value, CellStyle headerStyle) {
         Row row = sheet.createRow(rowNum);
         Cell labelCell = row.createCell(0);
@@ -1,8 +1,10 @@
 package com.nfc4care.service;
 
+import com.nfc4care.security.ParsedToken;
 import io.jsonwebtoken.*;
 import io.jsonwebtoken.security.Keys;
 import io.jsonwebtoken.SignatureAlgorithm;
+import jakarta.annotation.PostConstruct;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.security.core.userdetails.UserDetails;
@@ -14,6 +16,7 @@ import java.time.ZoneId;
 import java.util.Date;
 import java.util.HashMap;
 import java.util.Map;
+import java.util.UUID;
 import java.util.function.Function;
 
 @Service
@@ -28,17 +31,46 @@ public class JwtService {
     
     private final TokenService tokenService;
     
-    public JwtService(TokenService tokenService) {
+    private final TokenRevocationRegistry revocationRegistry;
+    
+    private SecretKey signingKey;
+    
+    private JwtParser jwtParser;
+    
+    public JwtService(TokenService tokenService, TokenRevocationRegistry revocationRegistry) {
         this.tokenService = tokenService;
+        this.revocationRegistry = revocationRegistry;
+    }
+    
+    /**
+     * Construit la clé HMAC et le parser une seule fois au démarrage
+     */
+    @PostConstruct
+    void init() {
+        this.signingKey = Keys.hmacShaKeyFor(secretKey.getBytes());
+        this.jwtParser = Jwts.parserBuilder()
+                .setSigningKey(signingKey)
+                .build();
+    }
+    
+    /**
+     * Parse et vérifie la signature du token une seule fois
+     */
+    public ParsedToken parse(String token) {
+        try {
+            return new ParsedToken(token, jwtParser.parseClaimsJws(token).getBody());
+        } catch (JwtException e) {
+            log.error("Erreur lors du parsing du token JWT: {}", e.getMessage());
+            throw e;
+        }
     }
     
     public String extractUsername(String token) {
-        return extractClaim(token, Claims::getSubject);
+        return parse(token).getSubject();
     }
     
     public <T> T extractClaim(String token, Function<Claims, T> claimsResolver) {
-        final Claims claims = extractAllClaims(token);
-        return claimsResolver.apply(claims);
+        return claimsResolver.apply(parse(token).getClaims());
     }
     
     public String generateToken(UserDetails userDetails) {
@@ -50,44 +82,69 @@ public class JwtService {
     }
     
     public String generateAndSaveToken(UserDetails userDetails, String userAgent, String ipAddress) {
+        if (revocationRegistry.isEnabled()) {
+            return generateStatelessToken(userDetails);
+        }
+        
         String token = generateToken(userDetails);
         
         // Calculer la date d'expiration
         LocalDateTime expiresAt = LocalDateTime.now().plusSeconds(jwtExpiration / 1000);
         
-        // Vérifier et nettoyer les tokens multiples avant de sauvegarder le nouveau
-        tokenService.ensureSingleActiveToken(userDetails.getUsername());
-        
-        // Sauvegarder le nouveau token (les anciens seront automatiquement désactivés)
+        // Sauvegarder le nouveau token (les anciens sont désactivés dans la même transaction)
         tokenService.saveToken(token, userDetails.getUsername(), expiresAt, userAgent, ipAddress);
         
         log.info("Token unique généré et sauvegardé pour l'utilisateur: {}", userDetails.getUsername());
         return token;
     }
     
+    /**
+     * Mode stateless : le token porte un jti et la génération courante de l'utilisateur,
+     * rien n'est écrit dans la table des tokens. Une nouvelle génération invalide la session précédente.
+     */
+    private String generateStatelessToken(UserDetails userDetails) {
+        long generation = revocationRegistry.bumpGeneration(userDetails.getUsername());
+        
+        Map<String, Object> claims = new HashMap<>();
+        claims.put(Claims.ID, UUID.randomUUID().toString());
+        claims.put(TokenRevocationRegistry.GENERATION_CLAIM, generation);
+        
+        String token = generateToken(claims, userDetails);
+        log.info("Token stateless généré (génération {}) pour l'utilisateur: {}", generation, userDetails.getUsername());
+        return token;
+    }
+    
     private String buildToken(Map<String, Object> extraClaims, UserDetails userDetails, long expiration) {
         return Jwts.builder()
                 .setClaims(extraClaims)
                 .setSubject(userDetails.getUsername())
                 .setIssuedAt(new Date(System.currentTimeMillis()))
                 .setExpiration(new Date(System.currentTimeMillis() + expiration))
-                .signWith(getSignInKey(), SignatureAlgorithm.HS256)
+                .signWith(signingKey, SignatureAlgorithm.HS256)
                 .compact();
     }
     
     public boolean isTokenValid(String token, UserDetails userDetails) {
+        try {
+            return isTokenValid(parse(token), userDetails);
+        } catch (Exception e) {
+            log.error("Erreur lors de la validation du token: {}", e.getMessage());
+            return false;
+        }
+    }
+    
+    public boolean isTokenValid(ParsedToken token, UserDetails userDetails) {
         try {
             // Vérifier d'abord la validité JWT
-            final String username = extractUsername(token);
-            boolean jwtValid = (username.equals(userDetails.getUsername())) && !isTokenExpired(token);
+            boolean jwtValid = userDetails.getUsername().equals(token.getSubject()) && !token.isExpired();
             
             if (!jwtValid) {
                 log.warn("Token JWT invalide pour l'utilisateur: {}", userDetails.getUsername());
                 return false;
             }
             
-            // Vérifier ensuite la validité en base de données
-            boolean dbValid = tokenService.isTokenValid(token);
+            // Vérifier ensuite la révocation (base de données ou registre stateless)
+            boolean dbValid = isTokenActive(token);
             
             if (!dbValid) {
                 log.warn("Token invalide en base de données pour l'utilisateur: {}", userDetails.getUsername());
@@ -104,15 +161,24 @@ public class JwtService {
     }
     
     public boolean isTokenValid(String token) {
+        try {
+            return isTokenValid(parse(token));
+        } catch (Exception e) {
+            log.error("Erreur lors de la validation du token: {}", e.getMessage());
+            return false;
+        }
+    }
+    
+    public boolean isTokenValid(ParsedToken token) {
         try {
             // Vérifier d'abord la validité JWT
-            if (isTokenExpired(token)) {
+            if (token.isExpired()) {
                 log.warn("Token JWT expiré");
                 return false;
             }
             
-            // Vérifier ensuite la validité en base de données
-            return tokenService.isTokenValid(token);
+            // Vérifier ensuite la révocation (base de données ou registre stateless)
+            return isTokenActive(token);
             
         } catch (Exception e) {
             log.error("Erreur lors de la validation du token: {}", e.getMessage());
@@ -120,36 +186,39 @@ public class JwtService {
         }
     }
     
-    private boolean isTokenExpired(String token) {
-        return extractExpiration(token).before(new Date());
-    }
-    
-    private Date extractExpiration(String token) {
-        return extractClaim(token, Claims::getExpiration);
-    }
-    
-    private Claims extractAllClaims(String token) {
-        try {
-            return Jwts.parserBuilder()
-                    .setSigningKey(getSignInKey())
-                    .build()
-                    .parseClaimsJws(token)
-                    .getBody();
-        } catch (JwtException e) {
-            log.error("Erreur lors du parsing du token JWT: {}", e.getMessage());
-            throw e;
+    /**
+     * Vérifie que le token n'a pas été révoqué
+     * En mode stateless, les tokens portant un jti sont vérifiés en mémoire ;
+     * les tokens émis avant la bascule restent vérifiés dans la table des tokens.
+     */
+    public boolean isTokenActive(ParsedToken token) {
+        String jti = token.getClaims().getId();
+        if (revocationRegistry.isEnabled() && jti != null) {
+            Long generation = token.getClaims().get(TokenRevocationRegistry.GENERATION_CLAIM, Long.class);
+            return revocationRegistry.isValid(jti, token.getSubject(), generation);
         }
-    }
-    
-    private SecretKey getSignInKey() {
-        byte[] keyBytes = secretKey.getBytes();
-        return Keys.hmacShaKeyFor(keyBytes);
+        return tokenService.isTokenValid(token.getRawToken());
     }
     
     /**
      * Révoque un token
      */
     public void revokeToken(String token) {
+        if (revocationRegistry.isEnabled()) {
+            ParsedToken parsedToken;
+            try {
+                parsedToken = parse(token);
+            } catch (JwtException e) {
+                log.warn("Token illisible ou expiré, aucune révocation nécessaire");
+                return;
+            }
+            String jti = parsedToken.getClaims().getId();
+            if (jti != null) {
+                LocalDateTime expiresAt = LocalDateTime.ofInstant(parsedToken.getExpiration().toInstant(), ZoneId.systemDefault());
+                revocationRegistry.revoke(jti, parsedToken.getSubject(), expiresAt);
+                return;
+            }
+        }
         tokenService.revokeToken(token);
     }
     
@@ -157,6 +226,10 @@ public class JwtService {
      * Révoque tous les tokens d'un utilisateur
      */
     public void revokeAllUserTokens(String userEmail) {
+        if (revocationRegistry.isEnabled()) {
+            revocationRegistry.bumpGeneration(userEmail);
+        }
+        // Couvre aussi les tokens émis avant la bascule en mode stateless
         tokenService.revokeAllUserTokens(userEmail);
     }
 } 
\ No newline at end of file
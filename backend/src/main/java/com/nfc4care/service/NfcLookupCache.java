@@ -0,0 +1,59 @@
+package com.nfc4care.service;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.nfc4care.dto.NfcScanResult;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.GuavaCacheMetrics;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cache de résolution des cartes NFC (numéro NFC → résumé du patient + dossier médical)
+ * Invalidé par PatientService et DossierMedicalService à chaque écriture ; le TTL borne
+ * la staleness des écritures faites sur une autre instance.
+ */
+@Component
+@Slf4j
+public class NfcLookupCache {
+
+    private final Cache<String, NfcScanResult> cache;
+
+    public NfcLookupCache(
+            @Value("${patients.nfc-cache.max-size:10000}") long maxSize,
+            @Value("${patients.nfc-cache.ttl-seconds:300}") long ttlSeconds,
+            MeterRegistry meterRegistry) {
+        this.cache = CacheBuilder.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(ttlSeconds, TimeUnit.SECONDS)
+                .recordStats()
+                .build();
+        GuavaCacheMetrics.monitor(meterRegistry, cache, "patients.nfc");
+        log.info("Cache de résolution NFC initialisé (taille max: {}, TTL: {}s)", maxSize, ttlSeconds);
+    }
+
+    public Optional<NfcScanResult> get(String numeroNFC) {
+        return Optional.ofNullable(cache.getIfPresent(numeroNFC));
+    }
+
+    public void put(NfcScanResult result) {
+        cache.put(result.getNumeroNFC(), result);
+    }
+
+    public void invalidate(String numeroNFC) {
+        if (numeroNFC != null) {
+            cache.invalidate(numeroNFC);
+        }
+    }
+
+    /**
+     * Supprime l'entrée d'un patient quand son numéro NFC n'est pas connu (ex. écriture sur le dossier)
+     */
+    public void invalidatePatient(Long patientId) {
+        cache.asMap().values().removeIf(result -> result.getPatientId().equals(patientId));
+    }
+}
@@ -0,0 +1,95 @@
+package com.nfc4care.service;
+
+import com.nfc4care.dto.ConsultationDto;
+import com.nfc4care.dto.DossierMedicalDto;
+import com.nfc4care.dto.PatientCardDto;
+import com.nfc4care.entity.Patient;
+import com.nfc4care.repository.ConsultationRepository;
+import com.nfc4care.repository.DossierMedicalRepository;
+import com.nfc4care.repository.PatientRepository;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Construction de la fiche patient en trois requêtes exécutées en parallèle :
+ * patient, dossier médical et dernières consultations (professionnel chargé par jointure)
+ */
+@Service
+@Slf4j
+public class PatientCardService {
+
+    private final PatientRepository patientRepository;
+    private final DossierMedicalRepository dossierMedicalRepository;
+    private final ConsultationRepository consultationRepository;
+    private final DossierMedicalService dossierMedicalService;
+    private final ConsultationService consultationService;
+    private final ExecutorService executor;
+
+    public PatientCardService(
+            PatientRepository patientRepository,
+            DossierMedicalRepository dossierMedicalRepository,
+            ConsultationRepository consultationRepository,
+            DossierMedicalService dossierMedicalService,
+            ConsultationService consultationService,
+            @Value("${patients.card.threads:8}") int threads) {
+        this.patientRepository = patientRepository;
+        this.dossierMedicalRepository = dossierMedicalRepository;
+        this.consultationRepository = consultationRepository;
+        this.dossierMedicalService = dossierMedicalService;
+        this.consultationService = consultationService;
+        // Pool dédié (Java 17, pas de threads virtuels) ; saturé, la requête s'exécute sur le thread appelant
+        AtomicInteger counter = new AtomicInteger();
+        this.executor = new ThreadPoolExecutor(threads, threads, 60, TimeUnit.SECONDS,
+                new ArrayBlockingQueue<>(threads * 4),
+                runnable -> {
+                    Thread thread = new Thread(runnable, "patient-card-" + counter.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                },
+                new ThreadPoolExecutor.CallerRunsPolicy());
+    }
+
+    /**
+     * @return la fiche, ou vide si le patient n'existe pas
+     */
+    public Optional<PatientCardDto> getPatientCard(Long patientId, int consultationLimit) {
+        CompletableFuture<Optional<Patient>> patient = CompletableFuture.supplyAsync(
+                () -> patientRepository.findById(patientId), executor);
+        CompletableFuture<DossierMedicalDto> dossier = CompletableFuture.supplyAsync(
+                () -> dossierMedicalRepository.findByPatientId(patientId)
+                        .map(dossierMedicalService::toDto)
+                        .orElse(null), executor);
+        CompletableFuture<List<ConsultationDto>> consultations = CompletableFuture.supplyAsync(
+                () -> consultationRepository.findLatestByPatientIdWithDetails(patientId, PageRequest.of(0, consultationLimit))
+                        .stream()
+                        .map(consultationService::toDto)
+                        .toList(), executor);
+
+        try {
+            return patient.join().map(found -> new PatientCardDto(found, dossier.join(), consultations.join()));
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException runtimeException) {
+                throw runtimeException;
+            }
+            throw e;
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdown();
+    }
+}
@@ -0,0 +1,68 @@
+package com.nfc4care.service;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.nfc4care.repository.PatientRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.util.Locale;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Totaux de patients mis en cache pour la pagination par curseur
+ * Le comptage n'est exécuté que si le client demande le total, puis réutilisé pendant le TTL
+ */
+@Service
+@Slf4j
+public class PatientCountService {
+
+    private static final String ALL_PATIENTS_KEY = "";
+
+    private final PatientRepository patientRepository;
+    private final Cache<String, Long> totals;
+
+    public PatientCountService(
+            PatientRepository patientRepository,
+            @Value("${patients.count-cache.max-size:1000}") long maxSize,
+            @Value("${patients.count-cache.ttl-seconds:60}") long ttlSeconds) {
+        this.patientRepository = patientRepository;
+        this.totals = CacheBuilder.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(ttlSeconds, TimeUnit.SECONDS)
+                .build();
+    }
+
+    /**
+     * Nombre total de patients (liste complète)
+     */
+    public long countAll() {
+        return cached(ALL_PATIENTS_KEY);
+    }
+
+    /**
+     * Nombre de patients actifs correspondant au terme de recherche
+     */
+    public long countSearch(String searchTerm) {
+        return cached("q:" + searchTerm.toLowerCase(Locale.ROOT));
+    }
+
+    /**
+     * À appeler après une création ou une suppression de patient
+     */
+    public void invalidate() {
+        totals.invalidateAll();
+    }
+
+    private long cached(String key) {
+        try {
+            return totals.get(key, () -> key.equals(ALL_PATIENTS_KEY)
+                    ? patientRepository.count()
+                    : patientRepository.countSearch(key.substring(2)));
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("Erreur lors du comptage des patients", e.getCause());
+        }
+    }
+}
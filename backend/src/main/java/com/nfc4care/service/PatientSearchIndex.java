@@ -0,0 +1,493 @@
+package com.nfc4care.service;
+
+import com.nfc4care.entity.Patient;
+import com.nfc4care.repository.PatientRepository;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.scheduling.annotation.Async;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Optional;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Function;
+import java.util.regex.Pattern;
+
+/**
+ * Index de recherche en mémoire des patients actifs (optionnel)
+ * Trigrammes pour la recherche par sous-chaîne et la recherche approchée,
+ * préfixes de mots pour les termes courts ; les accents sont ignorés.
+ * Tenu à jour par PatientService et reconstruit périodiquement pour converger entre instances.
+ */
+@Service
+@Slf4j
+public class PatientSearchIndex {
+
+    private static final int GRAM_SIZE = 3;
+    private static final double FUZZY_MIN_SIMILARITY = 0.6;
+    private static final int FUZZY_MIN_LENGTH = 4;
+    private static final Pattern DIACRITICS = Pattern.compile("\\p{M}+");
+    private static final Pattern WORD_SEPARATORS = Pattern.compile("[^\\p{Alnum}]+");
+
+    // Clés de tri typées, résolues une fois par requête : aucune réflexion par document trié
+    @SuppressWarnings("rawtypes")
+    private static final Map<String, Function<Patient, Comparable>> SORT_KEYS = Map.ofEntries(
+            Map.entry("id", Patient::getId),
+            Map.entry("numeroDossier", Patient::getNumeroDossier),
+            Map.entry("nom", Patient::getNom),
+            Map.entry("prenom", Patient::getPrenom),
+            Map.entry("dateNaissance", Patient::getDateNaissance),
+            Map.entry("sexe", Patient::getSexe),
+            Map.entry("adresse", Patient::getAdresse),
+            Map.entry("telephone", Patient::getTelephone),
+            Map.entry("email", Patient::getEmail),
+            Map.entry("numeroSecuriteSociale", Patient::getNumeroSecuriteSociale),
+            Map.entry("groupeSanguin", Patient::getGroupeSanguin),
+            Map.entry("numeroNFC", Patient::getNumeroNFC),
+            Map.entry("dateCreation", Patient::getDateCreation),
+            Map.entry("derniereConsultation", Patient::getDerniereConsultation));
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private static final Comparator<Comparable> IGNORE_CASE_ORDER = (left, right) ->
+            left instanceof String text && right instanceof String other
+                    ? String.CASE_INSENSITIVE_ORDER.compare(text, other)
+                    : left.compareTo(right);
+
+    private final PatientRepository patientRepository;
+    private final boolean enabled;
+    private final int loadBatchSize;
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    // Dernier état connu des patients modifiés pendant un chargement (vide si supprimé), protégé par le verrou
+    private final Map<Long, Optional<Patient>> writesDuringRebuild = new LinkedHashMap<>();
+    private volatile IndexState state = new IndexState();
+    private volatile boolean ready;
+    private volatile boolean rebuilding;
+
+    public PatientSearchIndex(
+            PatientRepository patientRepository,
+            MeterRegistry meterRegistry,
+            @Value("${patients.search-index.enabled:false}") boolean enabled,
+            @Value("${patients.search-index.load-batch-size:5000}") int loadBatchSize) {
+        this.patientRepository = patientRepository;
+        this.enabled = enabled;
+        this.loadBatchSize = loadBatchSize;
+        Gauge.builder("patients.search.index.memory", this, PatientSearchIndex::estimatedMemoryBytes)
+                .description("Mémoire estimée de l'index de recherche des patients")
+                .baseUnit("bytes")
+                .register(meterRegistry);
+        Gauge.builder("patients.search.index.documents", this, index -> index.state.liveDocuments())
+                .description("Patients présents dans l'index de recherche")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Indique si l'index est activé et chargé
+     */
+    public boolean isReady() {
+        return enabled && ready;
+    }
+
+    @Async
+    @EventListener(ApplicationReadyEvent.class)
+    public void onApplicationReady() {
+        if (enabled) {
+            rebuild();
+        }
+    }
+
+    /**
+     * Reconstruit l'index à partir de la base (tâche planifiée)
+     */
+    @Scheduled(initialDelayString = "${patients.search-index.refresh-ms:600000}",
+            fixedDelayString = "${patients.search-index.refresh-ms:600000}")
+    public void rebuild() {
+        if (!enabled) {
+            return;
+        }
+        long start = System.currentTimeMillis();
+        lock.writeLock().lock();
+        try {
+            rebuilding = true;
+            writesDuringRebuild.clear();
+        } finally {
+            lock.writeLock().unlock();
+        }
+        try {
+            IndexState fresh = new IndexState();
+            Long lastId = 0L;
+            List<Patient> batch;
+            do {
+                batch = patientRepository.findByActifTrueAndIdGreaterThanOrderByIdAsc(lastId, PageRequest.of(0, loadBatchSize));
+                batch.forEach(fresh::add);
+                if (!batch.isEmpty()) {
+                    lastId = batch.get(batch.size() - 1).getId();
+                }
+            } while (batch.size() == loadBatchSize);
+
+            lock.writeLock().lock();
+            try {
+                // Réappliquer les écritures concurrentes au chargement, sans aller-retour en base sous le verrou
+                writesDuringRebuild.forEach((patientId, patient) -> patient
+                        .filter(Patient::isActif)
+                        .ifPresentOrElse(fresh::add, () -> fresh.remove(patientId)));
+                writesDuringRebuild.clear();
+                state = fresh;
+                rebuilding = false;
+            } finally {
+                lock.writeLock().unlock();
+            }
+            ready = true;
+            log.info("Index de recherche des patients reconstruit: {} patients en {} ms (~{} Ko)",
+                    fresh.liveDocuments(), System.currentTimeMillis() - start, estimatedMemoryBytes() / 1024);
+        } catch (Exception e) {
+            lock.writeLock().lock();
+            try {
+                rebuilding = false;
+                writesDuringRebuild.clear();
+            } finally {
+                lock.writeLock().unlock();
+            }
+            log.error("Erreur lors de la reconstruction de l'index de recherche des patients: {}", e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Ajoute ou met à jour un patient (retiré s'il n'est plus actif)
+     */
+    public void upsert(Patient patient) {
+        if (!enabled) {
+            return;
+        }
+        lock.writeLock().lock();
+        try {
+            if (rebuilding) {
+                writesDuringRebuild.remove(patient.getId());
+                writesDuringRebuild.put(patient.getId(), Optional.of(patient));
+            }
+            if (patient.isActif()) {
+                state.add(patient);
+            } else {
+                state.remove(patient.getId());
+            }
+            compactIfNeeded();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void remove(Long patientId) {
+        if (!enabled) {
+            return;
+        }
+        lock.writeLock().lock();
+        try {
+            if (rebuilding) {
+                writesDuringRebuild.remove(patientId);
+                writesDuringRebuild.put(patientId, Optional.empty());
+            }
+            state.remove(patientId);
+            compactIfNeeded();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Recherche par sous-chaîne (trigrammes) ou par préfixe pour les termes courts,
+     * puis recherche approchée si aucun résultat exact.
+     * Le tri demandé est appliqué comme en base (valeurs nulles en fin de tri croissant).
+     */
+    public Page<Patient> search(String searchTerm, Pageable pageable) {
+        String query = normalize(searchTerm).trim();
+        lock.readLock().lock();
+        try {
+            IndexState current = state;
+            List<Integer> matches;
+            if (query.isEmpty()) {
+                matches = current.allLiveDocuments();
+            } else if (query.length() < GRAM_SIZE) {
+                matches = current.prefixMatches(query);
+            } else {
+                matches = current.substringMatches(query);
+                if (matches.isEmpty() && query.length() >= FUZZY_MIN_LENGTH) {
+                    matches = current.fuzzyMatches(query);
+                }
+            }
+
+            if (pageable.getSort().isSorted()) {
+                matches = sorted(current, matches, pageable.getSort());
+            }
+
+            int from = (int) Math.min(pageable.getOffset(), matches.size());
+            int to = Math.min(from + pageable.getPageSize(), matches.size());
+            List<Patient> content = new ArrayList<>(to - from);
+            for (int i = from; i < to; i++) {
+                content.add(current.documents.get(matches.get(i)));
+            }
+            return new PageImpl<>(content, pageable, matches.size());
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private static List<Integer> sorted(IndexState current, List<Integer> matches, Sort sort) {
+        Comparator<Patient> comparator = comparator(sort);
+        List<Integer> result = new ArrayList<>(matches);
+        result.sort((a, b) -> comparator.compare(current.documents.get(a), current.documents.get(b)));
+        return result;
+    }
+
+    private static Comparator<Patient> comparator(Sort sort) {
+        Comparator<Patient> comparator = null;
+        for (Sort.Order order : sort) {
+            Comparator<Patient> next = comparator(order);
+            comparator = comparator == null ? next : comparator.thenComparing(next);
+        }
+        return comparator;
+    }
+
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private static Comparator<Patient> comparator(Sort.Order order) {
+        Function<Patient, Comparable> key = SORT_KEYS.get(order.getProperty());
+        if (key == null) {
+            throw new IllegalArgumentException("Tri non supporté sur la propriété: " + order.getProperty());
+        }
+        Comparator<Comparable> values = order.isIgnoreCase() ? IGNORE_CASE_ORDER : Comparator.naturalOrder();
+        if (order.isDescending()) {
+            values = values.reversed();
+        }
+        // Comme PostgreSQL : NULL est plus grand que toute valeur, sauf demande explicite
+        boolean nullsFirst = switch (order.getNullHandling()) {
+            case NULLS_FIRST -> true;
+            case NULLS_LAST -> false;
+            default -> order.isDescending();
+        };
+        return Comparator.comparing(key, nullsFirst ? Comparator.nullsFirst(values) : Comparator.nullsLast(values));
+    }
+
+    long estimatedMemoryBytes() {
+        lock.readLock().lock();
+        try {
+            return state.estimatedBytes();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private void compactIfNeeded() {
+        IndexState current = state;
+        if (current.deleted > 1000 && current.deleted * 4 > current.documents.size()) {
+            IndexState compacted = new IndexState();
+            current.documents.stream().filter(p -> p != null).forEach(compacted::add);
+            state = compacted;
+        }
+    }
+
+    static String normalize(String value) {
+        if (value == null) {
+            return "";
+        }
+        return DIACRITICS.matcher(Normalizer.normalize(value, Normalizer.Form.NFD))
+                .replaceAll("")
+                .toLowerCase(Locale.ROOT);
+    }
+
+    private static Set<String> grams(String text) {
+        Set<String> grams = new LinkedHashSet<>();
+        for (int i = 0; i + GRAM_SIZE <= text.length(); i++) {
+            grams.add(text.substring(i, i + GRAM_SIZE));
+        }
+        return grams;
+    }
+
+    /**
+     * État de l'index ; les identifiants internes croissent à chaque ajout,
+     * les listes de postings sont donc triées par construction.
+     */
+    private static final class IndexState {
+
+        private static final int PATIENT_ESTIMATED_BYTES = 512;
+
+        final List<Patient> documents = new ArrayList<>();
+        final List<String> texts = new ArrayList<>();
+        final Map<Long, Integer> docIds = new HashMap<>();
+        final Map<String, IntList> grams = new HashMap<>();
+        final NavigableMap<String, IntList> words = new TreeMap<>();
+        int deleted;
+
+        void add(Patient patient) {
+            remove(patient.getId());
+            int docId = documents.size();
+            String text = normalize(String.join(" ",
+                    nullToEmpty(patient.getNom()),
+                    nullToEmpty(patient.getPrenom()),
+                    nullToEmpty(patient.getNumeroDossier()),
+                    nullToEmpty(patient.getTelephone()),
+                    nullToEmpty(patient.getEmail())));
+            documents.add(patient);
+            texts.add(text);
+            docIds.put(patient.getId(), docId);
+            for (String gram : PatientSearchIndex.grams(text)) {
+                grams.computeIfAbsent(gram, key -> new IntList()).add(docId);
+            }
+            for (String word : new LinkedHashSet<>(Arrays.asList(WORD_SEPARATORS.split(text)))) {
+                if (!word.isEmpty()) {
+                    words.computeIfAbsent(word, key -> new IntList()).add(docId);
+                }
+            }
+        }
+
+        void remove(Long patientId) {
+            Integer docId = docIds.remove(patientId);
+            if (docId != null) {
+                documents.set(docId, null);
+                texts.set(docId, null);
+                deleted++;
+            }
+        }
+
+        int liveDocuments() {
+            return docIds.size();
+        }
+
+        List<Integer> allLiveDocuments() {
+            List<Integer> result = new ArrayList<>(docIds.size());
+            for (int docId = 0; docId < documents.size(); docId++) {
+                if (documents.get(docId) != null) {
+                    result.add(docId);
+                }
+            }
+            return result;
+        }
+
+        List<Integer> prefixMatches(String prefix) {
+            Set<Integer> result = new TreeSet<>();
+            for (IntList postings : words.subMap(prefix, true, prefix + Character.MAX_VALUE, true).values()) {
+                for (int i = 0; i < postings.size; i++) {
+                    int docId = postings.data[i];
+                    if (documents.get(docId) != null) {
+                        result.add(docId);
+                    }
+                }
+            }
+            return new ArrayList<>(result);
+        }
+
+        List<Integer> substringMatches(String query) {
+            List<IntList> lists = new ArrayList<>();
+            for (String gram : PatientSearchIndex.grams(query)) {
+                IntList postings = grams.get(gram);
+                if (postings == null) {
+                    return Collections.emptyList();
+                }
+                lists.add(postings);
+            }
+            lists.sort(Comparator.comparingInt(list -> list.size));
+
+            // Intersection en partant de la liste la plus courte, puis vérification du texte
+            List<Integer> result = new ArrayList<>();
+            IntList smallest = lists.get(0);
+            int[] cursors = new int[lists.size()];
+            candidates:
+            for (int i = 0; i < smallest.size; i++) {
+                int docId = smallest.data[i];
+                for (int l = 1; l < lists.size(); l++) {
+                    IntList other = lists.get(l);
+                    while (cursors[l] < other.size && other.data[cursors[l]] < docId) {
+                        cursors[l]++;
+                    }
+                    if (cursors[l] == other.size || other.data[cursors[l]] != docId) {
+                        continue candidates;
+                    }
+                }
+                String text = texts.get(docId);
+                if (text != null && text.contains(query)) {
+                    result.add(docId);
+                }
+            }
+            return result;
+        }
+
+        List<Integer> fuzzyMatches(String query) {
+            Set<String> queryGrams = PatientSearchIndex.grams(query);
+            Map<Integer, Integer> shared = new HashMap<>();
+            for (String gram : queryGrams) {
+                IntList postings = grams.get(gram);
+                if (postings == null) {
+                    continue;
+                }
+                for (int i = 0; i < postings.size; i++) {
+                    shared.merge(postings.data[i], 1, Integer::sum);
+                }
+            }
+            int minShared = (int) Math.ceil(queryGrams.size() * FUZZY_MIN_SIMILARITY);
+            return shared.entrySet().stream()
+                    .filter(entry -> entry.getValue() >= minShared && documents.get(entry.getKey()) != null)
+                    .sorted(Map.Entry.<Integer, Integer>comparingByValue().reversed()
+                            .thenComparing(Map.Entry.comparingByKey()))
+                    .map(Map.Entry::getKey)
+                    .toList();
+        }
+
+        long estimatedBytes() {
+            long bytes = 0;
+            for (IntList postings : grams.values()) {
+                bytes += 64 + 4L * postings.data.length;
+            }
+            for (Map.Entry<String, IntList> entry : words.entrySet()) {
+                bytes += 96 + 2L * entry.getKey().length() + 4L * entry.getValue().data.length;
+            }
+            for (String text : texts) {
+                if (text != null) {
+                    bytes += 40 + 2L * text.length();
+                }
+            }
+            bytes += (long) docIds.size() * (PATIENT_ESTIMATED_BYTES + 48);
+            return bytes;
+        }
+
+        private static String nullToEmpty(String value) {
+            return value != null ? value : "";
+        }
+    }
+
+    /**
+     * Liste d'entiers sans boxing
+     */
+    private static final class IntList {
+        int[] data = new int[4];
+        int size;
+
+        void add(int value) {
+            if (size == data.length) {
+                data = Arrays.copyOf(data, size * 2);
+            }
+            data[size++] = value;
+        }
+    }
+}
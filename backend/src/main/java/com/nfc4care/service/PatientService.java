@@ -1,13 +1,19 @@
 package com.nfc4care.service;
 
+import com.nfc4care.dto.NfcScanResult;
+import com.nfc4care.dto.PageCursor;
+import com.nfc4care.dto.PagedResponse;
 import com.nfc4care.dto.PatientDto;
+import com.nfc4care.dto.TotalMode;
 import com.nfc4care.entity.Patient;
 import com.nfc4care.exception.ResourceNotFoundException;
 import com.nfc4care.repository.PatientRepository;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.stereotype.Service;
 
 import java.util.List;
@@ -19,6 +25,10 @@ import java.util.Optional;
 public class PatientService {
 
     private final PatientRepository patientRepository;
+    private final PatientSearchIndex patientSearchIndex;
+    private final PatientCountService patientCountService;
+    private final NfcLookupCache nfcLookupCache;
+    private final ExportCache exportCache;
 
     public List<Patient> getAllPatients() {
         return patientRepository.findAll();
@@ -28,6 +38,76 @@ public class PatientService {
         return patientRepository.findAll(pageable);
     }
     
+    /**
+     * Liste paginée dont le total est calculé selon le mode demandé
+     */
+    public PagedResponse<Patient> getAllPatientsPaginated(Pageable pageable, TotalMode totalMode) {
+        if (totalMode == TotalMode.EXACT) {
+            return PagedResponse.of(getAllPatientsPaginated(pageable));
+        }
+        Slice<Patient> slice = patientRepository.findAllSlice(pageable);
+        Long total = totalMode == TotalMode.ESTIMATE ? patientRepository.estimateCount() : null;
+        return PagedResponse.ofSlice(slice, total);
+    }
+
+    /**
+     * Recherche paginée dont le total est calculé selon le mode demandé
+     */
+    public PagedResponse<Patient> searchPatients(String searchTerm, Pageable pageable, TotalMode totalMode) {
+        if (totalMode == TotalMode.EXACT || patientSearchIndex.isReady()) {
+            // Le total de l'index en mémoire est exact et gratuit
+            return PagedResponse.of(searchPatients(searchTerm, pageable));
+        }
+        Slice<Patient> slice = patientRepository.searchPatientsSlice(searchTerm, pageable);
+        Long total = totalMode == TotalMode.ESTIMATE ? patientRepository.estimateSearchCount(searchTerm) : null;
+        return PagedResponse.ofSlice(slice, total);
+    }
+
+    /**
+     * Total exact mis en cache, demandé séparément par le client
+     */
+    public long countPatients(String searchTerm) {
+        return searchTerm == null || searchTerm.isBlank()
+                ? patientCountService.countAll()
+                : patientCountService.countSearch(searchTerm);
+    }
+
+    /**
+     * Liste des patients paginée par curseur (plus récents d'abord), sans COUNT sauf si includeTotal
+     */
+    public PagedResponse<Patient> getPatientsByCursor(String cursor, int size, boolean includeTotal) {
+        Pageable limit = PageRequest.of(0, size + 1);
+        List<Patient> rows;
+        if (cursor == null || cursor.isBlank()) {
+            rows = patientRepository.findFirstKeyset(limit);
+        } else {
+            PageCursor after = PageCursor.decode(cursor);
+            rows = patientRepository.findKeysetAfter(after.sortDate(), after.id(), limit);
+        }
+        Long total = includeTotal ? patientCountService.countAll() : null;
+        return PagedResponse.ofCursor(rows, size, cursor != null && !cursor.isBlank(), PatientService::cursorOf, total);
+    }
+
+    /**
+     * Recherche de patients paginée par curseur, sans COUNT sauf si includeTotal
+     */
+    public PagedResponse<Patient> searchPatientsByCursor(String searchTerm, String cursor, int size, boolean includeTotal) {
+        Pageable limit = PageRequest.of(0, size + 1);
+        List<Patient> rows;
+        if (cursor == null || cursor.isBlank()) {
+            rows = patientRepository.searchFirstKeyset(searchTerm, limit);
+        } else {
+            PageCursor after = PageCursor.decode(cursor);
+            rows = patientRepository.searchKeysetAfter(searchTerm, after.sortDate(), after.id(), limit);
+        }
+        Long total = includeTotal ? patientCountService.countSearch(searchTerm) : null;
+        return PagedResponse.ofCursor(rows, size, cursor != null && !cursor.isBlank(), PatientService::cursorOf, total);
+    }
+
+    private static PageCursor cursorOf(Patient patient) {
+        return new PageCursor(patient.getDateCreation(), patient.getId());
+    }
+    
     public Optional<Patient> getPatientById(Long id) {
         return patientRepository.findById(id);
     }
@@ -36,7 +116,23 @@ public class PatientService {
         return patientRepository.findByNumeroNFC(numeroNFC);
     }
     
+    /**
+     * Résolution d'un scan NFC : servie par le cache, sinon une seule requête
+     */
+    public Optional<NfcScanResult> getScanResult(String numeroNFC) {
+        Optional<NfcScanResult> cached = nfcLookupCache.get(numeroNFC);
+        if (cached.isPresent()) {
+            return cached;
+        }
+        Optional<NfcScanResult> result = patientRepository.findScanResultByNumeroNFC(numeroNFC);
+        result.ifPresent(nfcLookupCache::put);
+        return result;
+    }
+    
     public Page<Patient> searchPatients(String searchTerm, Pageable pageable) {
+        if (patientSearchIndex.isReady()) {
+            return patientSearchIndex.search(searchTerm, pageable);
+        }
         return patientRepository.searchPatients(searchTerm, pageable);
     }
     
@@ -55,7 +151,10 @@ public class PatientService {
         patient.setNumeroNFC(patientDto.getNumeroNFC());
         patient.setActif(true);
         
-        return patientRepository.save(patient);
+        Patient saved = patientRepository.save(patient);
+        patientSearchIndex.upsert(saved);
+        patientCountService.invalidate();
+        return saved;
     }
     
     public Patient updatePatient(Long id, PatientDto patientDto) {
@@ -71,7 +170,12 @@ public class PatientService {
         patient.setEmail(patientDto.getEmail());
         patient.setGroupeSanguin(patientDto.getGroupeSanguin());
 
-        return patientRepository.save(patient);
+        Patient saved = patientRepository.save(patient);
+        patientSearchIndex.upsert(saved);
+        patientCountService.invalidate();
+        nfcLookupCache.invalidate(saved.getNumeroNFC());
+        exportCache.invalidatePatient(saved.getId());
+        return saved;
     }
 
     public void deletePatient(Long id) {
@@ -79,5 +183,9 @@ public class PatientService {
                 .orElseThrow(() -> new ResourceNotFoundException("Patient avec l'ID " + id + " non trouvé"));
         patient.setActif(false);
         patientRepository.save(patient);
+        patientSearchIndex.remove(id);
+        patientCountService.invalidate();
+        nfcLookupCache.invalidate(patient.getNumeroNFC());
+        exportCache.invalidatePatient(id);
     }
 } 
\ No newline at end of file
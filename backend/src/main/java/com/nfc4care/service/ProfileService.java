@@ -16,6 +16,7 @@ public class ProfileService {
     private final ProfessionnelRepository professionnelRepository;
     private final PasswordEncoder passwordEncoder;
     private final TotpService totpService;
+    private final TokenRevocationEventBus revocationEventBus;
 
     public ProfileDto getProfileByEmail(String email) {
         Professionnel professionnel = professionnelRepository.findByEmail(email)
@@ -39,6 +40,7 @@ public class ProfileService {
         }
 
         Professionnel updated = professionnelRepository.save(professionnel);
+        revocationEventBus.publish(TokenRevocationEvent.principal(email));
         log.info("✅ Profil mis à jour pour: {}", email);
         return toDto(updated);
     }
@@ -61,6 +63,7 @@ public class ProfileService {
         // Encoder et sauvegarder
         professionnel.setPassword(passwordEncoder.encode(newPassword));
         professionnelRepository.save(professionnel);
+        revocationEventBus.publish(TokenRevocationEvent.principal(email));
         log.info("✅ Password changé pour: {}", email);
     }
 
@@ -104,6 +107,7 @@ public class ProfileService {
         // Activer la 2FA
         professionnel.setTwoFaEnabled(true);
         professionnelRepository.save(professionnel);
+        revocationEventBus.publish(TokenRevocationEvent.principal(email));
         log.info("✅ 2FA activée pour: {}", email);
     }
 
@@ -121,6 +125,7 @@ public class ProfileService {
         professionnel.setTwoFaEnabled(false);
         professionnel.setTwoFaSecret(null);
         professionnelRepository.save(professionnel);
+        revocationEventBus.publish(TokenRevocationEvent.principal(email));
         log.info("✅ 2FA désactivée pour: {}", email);
     }
 
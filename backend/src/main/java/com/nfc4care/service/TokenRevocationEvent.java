@@ -0,0 +1,67 @@
+package com.nfc4care.service;
+
+import lombok.AccessLevel;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+import lombok.ToString;
+
+/**
+ * Événement de révocation diffusé entre les instances du backend
+ * Reçu localement sous forme d'événement Spring par les caches d'authentification
+ */
+@Getter
+@ToString
+@RequiredArgsConstructor(access = AccessLevel.PRIVATE)
+public class TokenRevocationEvent {
+
+    private static final String SEPARATOR = "|";
+
+    public enum Type {
+        /** Un token révoqué, identifié par le hash SHA-256 de sa valeur */
+        TOKEN,
+        /** Tous les tokens (et données d'authentification en cache) d'un utilisateur */
+        USER,
+        /** Données d'authentification en cache d'un utilisateur modifiées (profil, mot de passe, 2FA) */
+        PRINCIPAL,
+        /** Un jti révoqué en mode stateless, avec sa date d'expiration */
+        JTI,
+        /** Des événements ont pu être perdus : vider tous les caches locaux */
+        RESET
+    }
+
+    private final Type type;
+    private final String key;
+    private final String detail;
+
+    public static TokenRevocationEvent token(String tokenHash) {
+        return new TokenRevocationEvent(Type.TOKEN, tokenHash, "");
+    }
+
+    public static TokenRevocationEvent user(String userEmail) {
+        return new TokenRevocationEvent(Type.USER, userEmail, "");
+    }
+
+    public static TokenRevocationEvent principal(String userEmail) {
+        return new TokenRevocationEvent(Type.PRINCIPAL, userEmail, "");
+    }
+
+    public static TokenRevocationEvent jti(String jti, String expiresAt) {
+        return new TokenRevocationEvent(Type.JTI, jti, expiresAt);
+    }
+
+    public static TokenRevocationEvent reset() {
+        return new TokenRevocationEvent(Type.RESET, "", "");
+    }
+
+    String toPayload() {
+        return type.name() + SEPARATOR + key + SEPARATOR + detail;
+    }
+
+    static TokenRevocationEvent fromPayload(String payload) {
+        String[] parts = payload.split("\\|", -1);
+        if (parts.length != 3) {
+            throw new IllegalArgumentException("Payload de révocation invalide: " + payload);
+        }
+        return new TokenRevocationEvent(Type.valueOf(parts[0]), parts[1], parts[2]);
+    }
+}
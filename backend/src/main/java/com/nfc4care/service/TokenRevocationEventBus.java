@@ -0,0 +1,168 @@
+package com.nfc4care.service;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.postgresql.PGConnection;
+import org.postgresql.PGNotification;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.ResultSetExtractor;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.UUID;
+
+/**
+ * Bus de révocation entre instances basé sur LISTEN/NOTIFY de PostgreSQL
+ * Chaque révocation est appliquée localement après commit puis diffusée via NOTIFY ;
+ * les autres instances la reçoivent sur une connexion dédiée et évincent leurs caches.
+ */
+@Service
+@Slf4j
+public class TokenRevocationEventBus {
+
+    private static final String NODE_SEPARATOR = "#";
+    private static final int POLL_TIMEOUT_MS = 500;
+    private static final long RECONNECT_DELAY_MS = 5000;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final ApplicationEventPublisher eventPublisher;
+    private final String nodeId = UUID.randomUUID().toString();
+
+    @Value("${spring.security.revocation-bus.enabled:true}")
+    private boolean enabled;
+
+    @Value("${spring.security.revocation-bus.channel:nfc4care_revocation}")
+    private String channel;
+
+    @Value("${spring.datasource.url}")
+    private String datasourceUrl;
+
+    @Value("${spring.datasource.username}")
+    private String datasourceUsername;
+
+    @Value("${spring.datasource.password}")
+    private String datasourcePassword;
+
+    private volatile boolean running;
+    private Thread listenerThread;
+
+    public TokenRevocationEventBus(JdbcTemplate jdbcTemplate, ApplicationEventPublisher eventPublisher) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.eventPublisher = eventPublisher;
+    }
+
+    /**
+     * Applique l'événement localement après commit et le diffuse aux autres instances
+     * (NOTIFY n'est délivré par PostgreSQL qu'au commit de la transaction courante)
+     */
+    public void publish(TokenRevocationEvent event) {
+        afterCommit(() -> eventPublisher.publishEvent(event));
+        if (!enabled) {
+            return;
+        }
+        try {
+            jdbcTemplate.query("SELECT pg_notify(?, ?)", (ResultSetExtractor<Void>) rs -> null,
+                    channel, nodeId + NODE_SEPARATOR + event.toPayload());
+        } catch (Exception e) {
+            log.error("Erreur lors de la diffusion de la révocation {}: {}", event, e.getMessage());
+        }
+    }
+
+    @PostConstruct
+    void start() {
+        if (!enabled) {
+            log.info("Bus de révocation inter-instances désactivé");
+            return;
+        }
+        running = true;
+        listenerThread = new Thread(this::listen, "revocation-listener");
+        listenerThread.setDaemon(true);
+        listenerThread.start();
+    }
+
+    @PreDestroy
+    void stop() {
+        running = false;
+        if (listenerThread != null) {
+            listenerThread.interrupt();
+        }
+    }
+
+    private void listen() {
+        boolean firstConnection = true;
+        while (running) {
+            try (Connection connection = DriverManager.getConnection(datasourceUrl, datasourceUsername, datasourcePassword)) {
+                try (Statement statement = connection.createStatement()) {
+                    statement.execute("LISTEN " + channel);
+                }
+                log.info("Écoute des révocations sur le canal PostgreSQL: {}", channel);
+                if (!firstConnection) {
+                    // Des notifications ont pu être perdues pendant la coupure
+                    eventPublisher.publishEvent(TokenRevocationEvent.reset());
+                }
+                firstConnection = false;
+
+                PGConnection pgConnection = connection.unwrap(PGConnection.class);
+                while (running) {
+                    PGNotification[] notifications = pgConnection.getNotifications(POLL_TIMEOUT_MS);
+                    if (notifications != null) {
+                        for (PGNotification notification : notifications) {
+                            // Une notification invalide ou un listener en erreur ne doit pas arrêter l'écoute
+                            try {
+                                dispatch(notification.getParameter());
+                            } catch (RuntimeException e) {
+                                log.error("Notification de révocation ignorée: {}", e.getMessage(), e);
+                            }
+                        }
+                    }
+                }
+            } catch (SQLException | RuntimeException e) {
+                if (!running) {
+                    return;
+                }
+                log.error("Connexion d'écoute des révocations perdue: {}. Nouvelle tentative dans {} ms",
+                        e.getMessage(), RECONNECT_DELAY_MS, e);
+                try {
+                    Thread.sleep(RECONNECT_DELAY_MS);
+                } catch (InterruptedException ie) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+            }
+        }
+    }
+
+    private void dispatch(String payload) {
+        if (payload == null) {
+            return;
+        }
+        int separatorIndex = payload.indexOf(NODE_SEPARATOR);
+        if (separatorIndex < 0 || payload.substring(0, separatorIndex).equals(nodeId)) {
+            return; // Déjà appliqué localement
+        }
+        TokenRevocationEvent event = TokenRevocationEvent.fromPayload(payload.substring(separatorIndex + 1));
+        log.debug("Révocation reçue d'une autre instance: {}", event);
+        eventPublisher.publishEvent(event);
+    }
+
+    private void afterCommit(Runnable action) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            action.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                action.run();
+            }
+        });
+    }
+}
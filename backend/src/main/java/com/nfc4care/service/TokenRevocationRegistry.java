@@ -0,0 +1,165 @@
+package com.nfc4care.service;
+
+import com.nfc4care.entity.RevokedToken;
+import com.nfc4care.repository.ProfessionnelRepository;
+import com.nfc4care.repository.RevokedTokenRepository;
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDateTime;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Révocation stateless des tokens JWT
+ * Un token porte un identifiant (jti) et la génération de tokens de son utilisateur ;
+ * il est valide tant que son jti n'est pas révoqué et que sa génération est la génération courante.
+ * La vérification se fait en mémoire : la base n'est lue qu'au démarrage, au premier accès à la génération
+ * d'un utilisateur et quand un token porte une génération plus récente que celle connue (émis par une autre instance).
+ */
+@Service
+@Slf4j
+public class TokenRevocationRegistry {
+
+    public static final String GENERATION_CLAIM = "gen";
+
+    private final RevokedTokenRepository revokedTokenRepository;
+    private final ProfessionnelRepository professionnelRepository;
+    private final TokenRevocationEventBus revocationEventBus;
+    private final boolean enabled;
+
+    private final Map<String, LocalDateTime> revokedJtis = new ConcurrentHashMap<>();
+    private final Map<String, Long> generations = new ConcurrentHashMap<>();
+
+    public TokenRevocationRegistry(
+            RevokedTokenRepository revokedTokenRepository,
+            ProfessionnelRepository professionnelRepository,
+            TokenRevocationEventBus revocationEventBus,
+            @Value("${spring.security.jwt.revocation-mode:table}") String revocationMode) {
+        this.revokedTokenRepository = revokedTokenRepository;
+        this.professionnelRepository = professionnelRepository;
+        this.revocationEventBus = revocationEventBus;
+        this.enabled = "stateless".equalsIgnoreCase(revocationMode);
+    }
+
+    @PostConstruct
+    void loadRevokedTokens() {
+        if (!enabled) {
+            return;
+        }
+        revokedTokenRepository.findByExpiresAtAfter(LocalDateTime.now())
+                .forEach(revoked -> revokedJtis.put(revoked.getJti(), revoked.getExpiresAt()));
+        log.info("Mode de révocation stateless actif ({} tokens révoqués chargés)", revokedJtis.size());
+    }
+
+    /**
+     * Indique si le mode de révocation stateless est actif
+     */
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Vérifie qu'un token n'est ni révoqué ni issu d'une génération antérieure
+     */
+    public boolean isValid(String jti, String userEmail, Long generation) {
+        if (jti == null || generation == null) {
+            return false;
+        }
+        if (revokedJtis.containsKey(jti)) {
+            log.warn("Token révoqué (jti) pour l'utilisateur: {}", userEmail);
+            return false;
+        }
+        long current = currentGeneration(userEmail);
+        if (generation > current) {
+            // Token émis par une autre instance après une révocation globale dont la notification n'est pas arrivée
+            current = refreshGeneration(userEmail);
+        }
+        if (generation != current) {
+            log.warn("Génération de token obsolète pour l'utilisateur: {}", userEmail);
+            return false;
+        }
+        return true;
+    }
+
+    /**
+     * Génération courante des tokens d'un utilisateur
+     */
+    public long currentGeneration(String userEmail) {
+        return generations.computeIfAbsent(userEmail,
+                email -> professionnelRepository.findTokenGenerationByEmail(email).orElse(0L));
+    }
+
+    /**
+     * Relit la génération en base ; la valeur connue n'est jamais abaissée
+     */
+    private long refreshGeneration(String userEmail) {
+        long stored = professionnelRepository.findTokenGenerationByEmail(userEmail).orElse(0L);
+        return generations.merge(userEmail, stored, Math::max);
+    }
+
+    /**
+     * Révoque un token individuel jusqu'à son expiration
+     */
+    public void revoke(String jti, String userEmail, LocalDateTime expiresAt) {
+        revokedTokenRepository.save(RevokedToken.builder()
+                .jti(jti)
+                .userEmail(userEmail)
+                .expiresAt(expiresAt)
+                .build());
+        revokedJtis.put(jti, expiresAt);
+        revocationEventBus.publish(TokenRevocationEvent.jti(jti, expiresAt.toString()));
+        log.info("Token révoqué (jti: {}) pour l'utilisateur: {}", jti, userEmail);
+    }
+
+    /**
+     * Invalide tous les tokens émis jusqu'ici pour un utilisateur
+     */
+    public long bumpGeneration(String userEmail) {
+        long generation = professionnelRepository.incrementTokenGeneration(userEmail).orElse(0L);
+        generations.merge(userEmail, generation, Math::max);
+        revocationEventBus.publish(TokenRevocationEvent.user(userEmail));
+        log.info("Nouvelle génération de tokens {} pour l'utilisateur: {}", generation, userEmail);
+        return generation;
+    }
+
+    /**
+     * Applique les révocations reçues des autres instances
+     */
+    @EventListener
+    public void onRevocation(TokenRevocationEvent event) {
+        if (!enabled) {
+            return;
+        }
+        switch (event.getType()) {
+            case JTI -> revokedJtis.put(event.getKey(), LocalDateTime.parse(event.getDetail()));
+            // La génération sera relue en base au prochain accès
+            case USER -> generations.remove(event.getKey());
+            case RESET -> {
+                generations.clear();
+                loadRevokedTokens();
+            }
+            default -> {
+                // Les hash de tokens concernent uniquement le mode table, les principals un autre cache
+            }
+        }
+    }
+
+    /**
+     * Purge les identifiants révoqués dont le token a expiré (tâche planifiée)
+     */
+    @Scheduled(fixedRate = 3600000) // Toutes les heures
+    public void purgeExpired() {
+        if (!enabled) {
+            return;
+        }
+        LocalDateTime now = LocalDateTime.now();
+        revokedJtis.values().removeIf(expiresAt -> expiresAt.isBefore(now));
+        int deleted = revokedTokenRepository.deleteExpired(now);
+        log.info("{} identifiants de tokens révoqués purgés", deleted);
+    }
+}
@@ -2,22 +2,72 @@ package com.nfc4care.service;
 
 import com.nfc4care.entity.Token;
 import com.nfc4care.repository.TokenRepository;
-import lombok.RequiredArgsConstructor;
+import com.nfc4care.util.HashUtil;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.time.LocalDateTime;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
 
 @Service
-@RequiredArgsConstructor
 @Slf4j
 public class TokenService {
     
+    private static final int PARTITIONS_DAYS_AHEAD = 7;
+    
     private final TokenRepository tokenRepository;
+    private final TokenValidationCache tokenValidationCache;
+    private final TokenRevocationEventBus revocationEventBus;
+    
+    private final int sweepBatchSize;
+    private final Timer sweepTimer;
+    private final Counter sweepRevokedCounter;
+    private final int purgeBatchSize;
+    private final boolean partitionedTokens;
+    private final Timer purgeTimer;
+    private final Counter purgeExpiredCounter;
+    private final Counter purgeDeletedCounter;
+    
+    public TokenService(
+            TokenRepository tokenRepository,
+            TokenValidationCache tokenValidationCache,
+            TokenRevocationEventBus revocationEventBus,
+            MeterRegistry meterRegistry,
+            @Value("${spring.security.token-sweep.batch-size:1000}") int sweepBatchSize,
+            @Value("${spring.security.token-purge.batch-size:5000}") int purgeBatchSize,
+            @Value("${spring.security.token-purge.partitioned:false}") boolean partitionedTokens) {
+        this.tokenRepository = tokenRepository;
+        this.tokenValidationCache = tokenValidationCache;
+        this.revocationEventBus = revocationEventBus;
+        this.sweepBatchSize = sweepBatchSize;
+        this.sweepTimer = Timer.builder("tokens.sweep.duplicates.duration")
+                .description("Durée du nettoyage des sessions multiples")
+                .register(meterRegistry);
+        this.sweepRevokedCounter = Counter.builder("tokens.sweep.duplicates.revoked")
+                .description("Tokens révoqués par le nettoyage des sessions multiples")
+                .register(meterRegistry);
+        this.purgeBatchSize = purgeBatchSize;
+        this.partitionedTokens = partitionedTokens;
+        this.purgeTimer = Timer.builder("tokens.purge.duration")
+                .description("Durée de la purge des tokens expirés")
+                .register(meterRegistry);
+        this.purgeExpiredCounter = Counter.builder("tokens.purge.expired")
+                .description("Tokens marqués comme expirés par la purge")
+                .register(meterRegistry);
+        this.purgeDeletedCounter = Counter.builder("tokens.purge.deleted")
+                .description("Tokens expirés supprimés par la purge")
+                .register(meterRegistry);
+    }
     
     /**
      * Sauvegarde un token en base de données
@@ -27,20 +77,17 @@ public class TokenService {
     public Token saveToken(String tokenValue, String userEmail, LocalDateTime expiresAt, String userAgent, String ipAddress) {
         log.info("Sauvegarde du token pour l'utilisateur: {}", userEmail);
         
-        // Désactiver tous les tokens actifs existants pour cet utilisateur
-        List<Token> activeTokens = tokenRepository.findValidTokensByUser(userEmail, LocalDateTime.now());
-        if (!activeTokens.isEmpty()) {
-            log.info("Désactivation de {} tokens actifs existants pour l'utilisateur: {}", activeTokens.size(), userEmail);
-            for (Token activeToken : activeTokens) {
-                activeToken.setRevoked(true);
-                tokenRepository.save(activeToken);
-                log.debug("Token désactivé: {}", activeToken.getTokenValue().substring(0, Math.min(20, activeToken.getTokenValue().length())));
-            }
+        // Désactiver tous les tokens actifs existants pour cet utilisateur (une seule requête UPDATE)
+        int revokedCount = tokenRepository.revokeActiveUserTokens(userEmail, LocalDateTime.now());
+        if (revokedCount > 0) {
+            log.info("Désactivation de {} tokens actifs existants pour l'utilisateur: {}", revokedCount, userEmail);
+            revocationEventBus.publish(TokenRevocationEvent.user(userEmail));
         }
         
         // Créer le nouveau token
         Token token = Token.builder()
                 .tokenValue(tokenValue)
+                .tokenHash(HashUtil.generateSHA256Hash(tokenValue))
                 .userEmail(userEmail)
                 .expiresAt(expiresAt)
                 .userAgent(userAgent)
@@ -52,20 +99,25 @@ public class TokenService {
         Token savedToken = tokenRepository.save(token);
         log.info("Nouveau token actif créé avec l'ID: {} pour l'utilisateur: {}", savedToken.getId(), userEmail);
         
-        // Vérifier qu'il n'y a qu'un seul token actif
-        long activeTokenCount = tokenRepository.countValidTokensByUser(userEmail);
-        log.info("Nombre de tokens actifs pour {}: {}", userEmail, activeTokenCount);
-        
         return savedToken;
     }
     
     /**
      * Vérifie si un token est valide en base de données
+     * Lecture seule : aucune écriture, même pour un token expiré
      */
+    @Transactional(readOnly = true)
     public boolean isTokenValid(String tokenValue) {
         log.debug("Vérification de la validité du token: {}", tokenValue.substring(0, Math.min(20, tokenValue.length())));
         
-        Optional<Token> tokenOpt = tokenRepository.findByTokenValue(tokenValue);
+        String tokenHash = HashUtil.generateSHA256Hash(tokenValue);
+        if (tokenValidationCache.isCachedValid(tokenHash)) {
+            return true;
+        }
+        
+        // Lue avant la base : une révocation concurrente empêche la mise en cache du résultat
+        long cacheEpoch = tokenValidationCache.currentEpoch();
+        Optional<Token> tokenOpt = tokenRepository.findByTokenHash(tokenHash);
         
         if (tokenOpt.isEmpty()) {
             log.warn("Token non trouvé en base de données");
@@ -80,15 +132,13 @@ public class TokenService {
             return false;
         }
         
-        // Vérifier si le token est expiré
+        // Vérifier si le token est expiré (calculé depuis expiresAt, le flag n'est maintenu que par la purge planifiée)
         if (token.isExpired() || token.getExpiresAt().isBefore(LocalDateTime.now())) {
             log.warn("Token expiré pour l'utilisateur: {}", token.getUserEmail());
-            // Marquer comme expiré en base
-            token.setExpired(true);
-            tokenRepository.save(token);
             return false;
         }
         
+        tokenValidationCache.put(tokenHash, token.getUserEmail(), token.getExpiresAt(), cacheEpoch);
         log.debug("Token valide pour l'utilisateur: {}", token.getUserEmail());
         return true;
     }
@@ -97,7 +147,7 @@ public class TokenService {
      * Récupère l'email de l'utilisateur associé au token
      */
     public Optional<String> getUserEmailFromToken(String tokenValue) {
-        return tokenRepository.findByTokenValue(tokenValue)
+        return tokenRepository.findByTokenHash(HashUtil.generateSHA256Hash(tokenValue))
                 .map(Token::getUserEmail);
     }
     
@@ -107,12 +157,14 @@ public class TokenService {
     public void revokeToken(String tokenValue) {
         log.info("Révocation du token: {}", tokenValue.substring(0, Math.min(20, tokenValue.length())));
         
-        tokenRepository.findByTokenValue(tokenValue)
+        String tokenHash = HashUtil.generateSHA256Hash(tokenValue);
+        tokenRepository.findByTokenHash(tokenHash)
                 .ifPresent(token -> {
                     token.setRevoked(true);
                     tokenRepository.save(token);
                     log.info("Token révoqué pour l'utilisateur: {}", token.getUserEmail());
                 });
+        revocationEventBus.publish(TokenRevocationEvent.token(tokenHash));
     }
     
     /**
@@ -121,6 +173,7 @@ public class TokenService {
     public void revokeAllUserTokens(String userEmail) {
         log.info("Révocation de tous les tokens pour l'utilisateur: {}", userEmail);
         tokenRepository.revokeAllUserTokens(userEmail);
+        revocationEventBus.publish(TokenRevocationEvent.user(userEmail));
     }
     
     /**
@@ -132,22 +185,48 @@ public class TokenService {
     
     /**
      * Nettoie les tokens expirés (tâche planifiée)
+     * Traite des lots bornés, chacun dans sa propre transaction courte, pour éviter les verrous longs ;
+     * en disposition partitionnée, la suppression se fait par DROP des partitions expirées.
      */
     @Scheduled(fixedRate = 3600000) // Toutes les heures
-    @Transactional
     public void cleanExpiredTokens() {
         log.info("Nettoyage des tokens expirés...");
         
+        long start = System.nanoTime();
         try {
             // Marquer les tokens expirés
-            int expiredCount = tokenRepository.expireTokens(LocalDateTime.now());
+            int expiredCount = 0;
+            int batchCount;
+            do {
+                batchCount = tokenRepository.markExpiredTokensBatch(LocalDateTime.now(), purgeBatchSize);
+                expiredCount += batchCount;
+                purgeExpiredCounter.increment(batchCount);
+            } while (batchCount == purgeBatchSize);
             log.info("{} tokens marqués comme expirés", expiredCount);
             
             // Supprimer les tokens expirés depuis plus de 24h
             LocalDateTime cutoffDate = LocalDateTime.now().minusHours(24);
-            tokenRepository.deleteByExpiresAtBefore(cutoffDate);
+            if (partitionedTokens) {
+                tokenRepository.createTokenPartitions(PARTITIONS_DAYS_AHEAD);
+                int droppedPartitions = tokenRepository.dropExpiredTokenPartitions(cutoffDate);
+                log.info("{} partitions de tokens expirées supprimées", droppedPartitions);
+            } else {
+                int deletedCount = 0;
+                int batches = 0;
+                do {
+                    batchCount = tokenRepository.deleteExpiredTokensBatch(cutoffDate, purgeBatchSize);
+                    deletedCount += batchCount;
+                    purgeDeletedCounter.increment(batchCount);
+                    if (++batches % 100 == 0) {
+                        log.info("Purge en cours: {} tokens supprimés", deletedCount);
+                    }
+                } while (batchCount == purgeBatchSize);
+                log.info("{} tokens expirés supprimés", deletedCount);
+            }
             
-            log.info("Nettoyage des tokens expirés terminé avec succès");
+            long elapsed = System.nanoTime() - start;
+            purgeTimer.record(elapsed, TimeUnit.NANOSECONDS);
+            log.info("Nettoyage des tokens expirés terminé avec succès en {} ms", TimeUnit.NANOSECONDS.toMillis(elapsed));
         } catch (Exception e) {
             log.error("Erreur lors du nettoyage des tokens expirés: {}", e.getMessage(), e);
         }
@@ -155,90 +234,38 @@ public class TokenService {
     
     /**
      * Nettoie les tokens multiples pour tous les utilisateurs (tâche planifiée)
+     * Révoque en SQL ensembliste, par lots bornés, tout token actif qui n'est pas le plus récent de son utilisateur
      */
     @Scheduled(fixedRate = 1800000) // Toutes les 30 minutes
-    @Transactional
     public void cleanMultipleTokensForAllUsers() {
         log.info("Vérification des tokens multiples pour tous les utilisateurs...");
         
+        long start = System.nanoTime();
         try {
-            // Récupérer tous les utilisateurs avec des tokens actifs
-            List<String> usersWithTokens = tokenRepository.findUsersWithActiveTokens(LocalDateTime.now());
+            int revokedTokens = 0;
+            Set<String> cleanedUsers = new HashSet<>();
+            List<String> batch;
+            do {
+                // Chaque lot est une transaction courte (auto-commit)
+                batch = tokenRepository.revokeDuplicateActiveTokens(LocalDateTime.now(), sweepBatchSize);
+                revokedTokens += batch.size();
+                cleanedUsers.addAll(batch);
+            } while (batch.size() == sweepBatchSize);
             
-            int cleanedUsers = 0;
-            for (String userEmail : usersWithTokens) {
-                long activeTokenCount = tokenRepository.countValidTokensByUser(userEmail);
-                if (activeTokenCount > 1) {
-                    log.info("Nettoyage des tokens multiples pour l'utilisateur: {} ({} tokens)", userEmail, activeTokenCount);
-                    cleanMultipleTokensForUser(userEmail);
-                    cleanedUsers++;
-                }
-            }
+            cleanedUsers.forEach(userEmail -> revocationEventBus.publish(TokenRevocationEvent.user(userEmail)));
             
-            if (cleanedUsers > 0) {
-                log.info("Nettoyage terminé pour {} utilisateurs", cleanedUsers);
+            long elapsed = System.nanoTime() - start;
+            sweepTimer.record(elapsed, TimeUnit.NANOSECONDS);
+            sweepRevokedCounter.increment(revokedTokens);
+            
+            if (revokedTokens > 0) {
+                log.info("Nettoyage terminé: {} tokens révoqués pour {} utilisateurs en {} ms",
+                        revokedTokens, cleanedUsers.size(), TimeUnit.NANOSECONDS.toMillis(elapsed));
             } else {
-                log.debug("Aucun utilisateur avec des tokens multiples trouvé");
+                log.debug("Aucun utilisateur avec des tokens multiples trouvé ({} ms)", TimeUnit.NANOSECONDS.toMillis(elapsed));
             }
         } catch (Exception e) {
             log.error("Erreur lors du nettoyage des tokens multiples: {}", e.getMessage(), e);
         }
     }
-    
-    /**
-     * Compte le nombre de tokens valides pour un utilisateur
-     */
-    public long countValidTokensByUser(String userEmail) {
-        return tokenRepository.countValidTokensByUser(userEmail);
-    }
-    
-    /**
-     * Nettoie les tokens multiples pour un utilisateur
-     * Garde seulement le token le plus récent
-     */
-    @Transactional
-    public void cleanMultipleTokensForUser(String userEmail) {
-        log.info("Nettoyage des tokens multiples pour l'utilisateur: {}", userEmail);
-        
-        List<Token> activeTokens = tokenRepository.findValidTokensByUser(userEmail, LocalDateTime.now());
-        
-        if (activeTokens.size() > 1) {
-            log.warn("{} tokens actifs trouvés pour l'utilisateur: {}", activeTokens.size(), userEmail);
-            
-            // Trier par date de création (le plus récent en premier)
-            activeTokens.sort((t1, t2) -> t2.getCreatedAt().compareTo(t1.getCreatedAt()));
-            
-            // Garder seulement le premier (le plus récent) et désactiver les autres
-            for (int i = 1; i < activeTokens.size(); i++) {
-                Token tokenToRevoke = activeTokens.get(i);
-                tokenToRevoke.setRevoked(true);
-                tokenRepository.save(tokenToRevoke);
-                log.info("Token désactivé (multiple): {}", tokenToRevoke.getTokenValue().substring(0, Math.min(20, tokenToRevoke.getTokenValue().length())));
-            }
-            
-            log.info("Nettoyage terminé. 1 token actif conservé pour l'utilisateur: {}", userEmail);
-        } else {
-            log.debug("Aucun nettoyage nécessaire pour l'utilisateur: {} ({} tokens actifs)", userEmail, activeTokens.size());
-        }
-    }
-    
-    /**
-     * Vérifie et corrige l'état des tokens pour un utilisateur
-     * Assure qu'il n'y a qu'un seul token actif
-     */
-    @Transactional
-    public void ensureSingleActiveToken(String userEmail) {
-        log.info("Vérification de l'état des tokens pour l'utilisateur: {}", userEmail);
-        
-        long activeTokenCount = tokenRepository.countValidTokensByUser(userEmail);
-        
-        if (activeTokenCount > 1) {
-            log.warn("{} tokens actifs détectés pour l'utilisateur: {}. Nettoyage en cours...", activeTokenCount, userEmail);
-            cleanMultipleTokensForUser(userEmail);
-        } else if (activeTokenCount == 1) {
-            log.debug("État correct: 1 token actif pour l'utilisateur: {}", userEmail);
-        } else {
-            log.debug("Aucun token actif pour l'utilisateur: {}", userEmail);
-        }
-    }
-} 
\ No newline at end of file
+}
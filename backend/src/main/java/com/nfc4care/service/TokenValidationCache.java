@@ -0,0 +1,116 @@
+package com.nfc4care.service;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.GuavaCacheMetrics;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDateTime;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Cache mémoire borné de la validité des tokens, indexé par le hash SHA-256 du token.
+ * Seuls les tokens valides sont mis en cache ; une entrée n'est jamais servie au-delà
+ * de la date d'expiration du token.
+ * Chaque invalidation avance une époque : une entrée lue en base avant une invalidation
+ * plus récente n'est jamais conservée dans le cache.
+ */
+@Component
+@Slf4j
+public class TokenValidationCache {
+
+    private final Cache<String, CachedToken> cache;
+    private final AtomicLong invalidationEpoch = new AtomicLong();
+
+    public TokenValidationCache(
+            @Value("${spring.security.token-cache.max-size:10000}") long maxSize,
+            @Value("${spring.security.token-cache.ttl-seconds:300}") long ttlSeconds,
+            MeterRegistry meterRegistry) {
+        this.cache = CacheBuilder.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(ttlSeconds, TimeUnit.SECONDS)
+                .recordStats()
+                .build();
+        GuavaCacheMetrics.monitor(meterRegistry, cache, "tokens.validation");
+        log.info("Cache de validation des tokens initialisé (taille max: {}, TTL: {}s)", maxSize, ttlSeconds);
+    }
+
+    /**
+     * Indique si le token est connu comme valide sans interroger la base
+     */
+    public boolean isCachedValid(String tokenHash) {
+        CachedToken cached = cache.getIfPresent(tokenHash);
+        if (cached == null) {
+            return false;
+        }
+        if (!cached.expiresAt().isAfter(LocalDateTime.now())) {
+            cache.invalidate(tokenHash);
+            return false;
+        }
+        return true;
+    }
+
+    /**
+     * Époque d'invalidation courante, à lire avant la lecture en base du token
+     */
+    public long currentEpoch() {
+        return invalidationEpoch.get();
+    }
+
+    /**
+     * Met le token en cache, sauf si une invalidation a eu lieu depuis l'époque lue avant la lecture en base.
+     * L'entrée est insérée puis l'époque revérifiée : une invalidation concurrente avance l'époque
+     * avant de supprimer, donc soit elle supprime l'entrée, soit la revérification le fait.
+     */
+    public void put(String tokenHash, String userEmail, LocalDateTime expiresAt, long epoch) {
+        if (invalidationEpoch.get() != epoch) {
+            return;
+        }
+        CachedToken cached = new CachedToken(userEmail, expiresAt);
+        cache.put(tokenHash, cached);
+        if (invalidationEpoch.get() != epoch) {
+            cache.asMap().remove(tokenHash, cached);
+        }
+    }
+
+    public void invalidate(String tokenHash) {
+        invalidationEpoch.incrementAndGet();
+        cache.invalidate(tokenHash);
+    }
+
+    /**
+     * Supprime toutes les entrées d'un utilisateur (révocation globale ou nouvelle session)
+     */
+    public void invalidateUser(String userEmail) {
+        invalidationEpoch.incrementAndGet();
+        cache.asMap().values().removeIf(cached -> cached.userEmail().equals(userEmail));
+    }
+
+    public void invalidateAll() {
+        invalidationEpoch.incrementAndGet();
+        cache.invalidateAll();
+    }
+
+    /**
+     * Applique les révocations locales et celles reçues des autres instances
+     */
+    @EventListener
+    public void onRevocation(TokenRevocationEvent event) {
+        switch (event.getType()) {
+            case TOKEN -> invalidate(event.getKey());
+            case USER -> invalidateUser(event.getKey());
+            case RESET -> invalidateAll();
+            default -> {
+                // Les jti révoqués et les principals ne concernent pas ce cache
+            }
+        }
+    }
+
+    private record CachedToken(String userEmail, LocalDateTime expiresAt) {
+    }
+}
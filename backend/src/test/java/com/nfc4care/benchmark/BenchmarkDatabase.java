@@ -0,0 +1,35 @@
+package com.nfc4care.benchmark;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.sql.Statement;
+
+/**
+ * Connexion PostgreSQL des benchmarks, avec les mêmes variables d'environnement que application.yml
+ * Les benchmarks créent leurs propres tables bench_* et les suppriment à la fin : aucune donnée applicative n'est lue.
+ */
+final class BenchmarkDatabase {
+
+    private BenchmarkDatabase() {
+    }
+
+    static Connection connect() throws SQLException {
+        String url = "jdbc:postgresql://" + env("DB_HOST", "localhost") + ":" + env("DB_PORT", "5432")
+                + "/" + env("DB_NAME", "nfc4care");
+        return DriverManager.getConnection(url, env("DB_USERNAME", "nfc4care"), env("DB_PASSWORD", "nfc4care"));
+    }
+
+    static void execute(Connection connection, String... statements) throws SQLException {
+        try (Statement statement = connection.createStatement()) {
+            for (String sql : statements) {
+                statement.execute(sql);
+            }
+        }
+    }
+
+    private static String env(String name, String defaultValue) {
+        String value = System.getenv(name);
+        return value == null || value.isBlank() ? defaultValue : value;
+    }
+}
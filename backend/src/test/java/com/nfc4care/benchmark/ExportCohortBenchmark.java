@@ -0,0 +1,117 @@
+package com.nfc4care.benchmark;
+
+import com.nfc4care.entity.Consultation;
+import com.nfc4care.entity.DossierMedical;
+import com.nfc4care.entity.Patient;
+import com.nfc4care.entity.Professionnel;
+import com.nfc4care.repository.ConsultationRepository;
+import com.nfc4care.service.ExportService;
+import jakarta.persistence.EntityManager;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.io.OutputStream;
+import java.lang.reflect.Proxy;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+/**
+ * Durée et allocation de l'export Excel d'une cohorte (ExportService.exportCohortToExcel), jusqu'à 100 000 consultations
+ * Les consultations sont générées à la demande, triées par patient comme la requête de cohorte.
+ * Lancement, depuis backend/ :
+ * mvn -q test-compile dependency:build-classpath -Dmdep.outputFile=target/cp.txt -Dmdep.includeScope=test
+ * java -cp target/test-classes:target/classes:$(cat target/cp.txt) com.nfc4care.benchmark.ExportCohortBenchmark
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 5)
+@Fork(1)
+public class ExportCohortBenchmark {
+
+    private static final int CONSULTATIONS_PER_PATIENT = 5;
+    private static final LocalDate FROM = LocalDate.of(2024, 1, 1);
+    private static final LocalDate TO = LocalDate.of(2024, 12, 31);
+
+    @Param({"2000", "20000"})
+    private int patients;
+
+    private ExportService exportService;
+    private Professionnel professionnel;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        professionnel = Professionnel.builder().id(1L).email("medecin@nfc4care.sn").build();
+        // Dépôt minimal : un nouveau flux de consultations à chaque export
+        ConsultationRepository consultationRepository = (ConsultationRepository) Proxy.newProxyInstance(
+                ConsultationRepository.class.getClassLoader(), new Class<?>[]{ConsultationRepository.class},
+                (proxy, method, args) -> {
+                    if (method.getName().equals("streamByProfessionnelAndPeriod")) {
+                        return generatedCohort();
+                    }
+                    throw new UnsupportedOperationException(method.getName());
+                });
+        // Seul clear() est appelé pendant l'export
+        EntityManager entityManager = (EntityManager) Proxy.newProxyInstance(
+                EntityManager.class.getClassLoader(), new Class<?>[]{EntityManager.class},
+                (proxy, method, args) -> null);
+        exportService = new ExportService(consultationRepository, null, entityManager);
+    }
+
+    @Benchmark
+    public void exportCohortToExcel() throws Exception {
+        exportService.exportCohortToExcel(professionnel, FROM, TO, OutputStream.nullOutputStream());
+    }
+
+    private Stream<Consultation> generatedCohort() {
+        return IntStream.range(0, patients).boxed().flatMap(p -> {
+            Patient patient = new Patient();
+            patient.setId((long) p + 1);
+            patient.setNumeroDossier("DOS" + p);
+            patient.setNom("Ndiaye" + p);
+            patient.setPrenom("Fatou");
+            patient.setDateNaissance(LocalDate.of(1970 + p % 50, 1 + p % 12, 1 + p % 28));
+            patient.setSexe(p % 2 == 0 ? "F" : "M");
+            patient.setTelephone("77" + p);
+            patient.setNumeroSecuriteSociale("NSS" + p);
+            DossierMedical dossier = new DossierMedical();
+            dossier.setPatient(patient);
+            return IntStream.range(0, CONSULTATIONS_PER_PATIENT).mapToObj(c -> {
+                Consultation consultation = new Consultation();
+                consultation.setDossierMedical(dossier);
+                consultation.setProfessionnel(professionnel);
+                consultation.setDateConsultation(LocalDateTime.of(2024, 1 + c, 10, 9, 30));
+                consultation.setMotifConsultation("Contrôle tensionnel");
+                consultation.setDiagnostic("Hypertension artérielle stade " + (c % 3 + 1));
+                consultation.setTraitementPrescrit("Amlodipine 5 mg");
+                return consultation;
+            });
+        });
+    }
+
+    public static void main(String[] args) throws Exception {
+        Options options = new OptionsBuilder()
+                .include(ExportCohortBenchmark.class.getSimpleName())
+                .addProfiler(GCProfiler.class)
+                .build();
+        new Runner(options).run();
+    }
+}
@@ -0,0 +1,107 @@
+package com.nfc4care.benchmark;
+
+import com.nfc4care.dto.ConsultationSummaryRow;
+import com.nfc4care.entity.DossierMedical;
+import com.nfc4care.entity.Patient;
+import com.nfc4care.repository.ConsultationRepository;
+import com.nfc4care.service.ExportService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.io.OutputStream;
+import java.lang.reflect.Proxy;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.IntStream;
+
+/**
+ * Latence et allocation par document du rendu PDF d'un dossier patient (ExportService.exportToPDF)
+ * Lancement, depuis backend/ :
+ * mvn -q test-compile dependency:build-classpath -Dmdep.outputFile=target/cp.txt -Dmdep.includeScope=test
+ * java -cp target/test-classes:target/classes:$(cat target/cp.txt) com.nfc4care.benchmark.ExportPdfBenchmark
+ * L'allocation par document est la ligne gc.alloc.rate.norm (octets/op) du profileur GC.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ExportPdfBenchmark {
+
+    @Param({"0", "20", "200"})
+    private int consultations;
+
+    private ExportService exportService;
+    private Patient patient;
+    private DossierMedical dossier;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        List<ConsultationSummaryRow> history = IntStream.range(0, consultations)
+                .mapToObj(i -> new ConsultationSummaryRow((long) i, LocalDateTime.of(2024, 1, 1, 9, 0).plusDays(i),
+                        "Contrôle tensionnel", "Hypertension artérielle stade 1", 1L, "Ndiaye", "Fatou", "DOS-0001",
+                        1L, "Diop", "Awa", "Cardiologie"))
+                .toList();
+        // Dépôt minimal : seul l'historique est lu par le rendu PDF
+        ConsultationRepository consultationRepository = (ConsultationRepository) Proxy.newProxyInstance(
+                ConsultationRepository.class.getClassLoader(), new Class<?>[]{ConsultationRepository.class},
+                (proxy, method, args) -> {
+                    if (method.getName().equals("findPatientSummaries")) {
+                        return history;
+                    }
+                    throw new UnsupportedOperationException(method.getName());
+                });
+        exportService = new ExportService(consultationRepository, null, null);
+
+        patient = new Patient();
+        patient.setId(1L);
+        patient.setNumeroDossier("DOS-0001");
+        patient.setNom("Ndiaye");
+        patient.setPrenom("Fatou");
+        patient.setDateNaissance(LocalDate.of(1975, 4, 12));
+        patient.setSexe("F");
+        patient.setGroupeSanguin("O+");
+        patient.setTelephone("771234567");
+        patient.setEmail("fatou.ndiaye@example.sn");
+        patient.setNumeroSecuriteSociale("1750412000001");
+
+        dossier = new DossierMedical();
+        dossier.setId(1L);
+        dossier.setAntecedentsMedicaux("Hypertension artérielle depuis 2015");
+        dossier.setAntecedentsChirurgicaux("Appendicectomie (1998)");
+        dossier.setAntecedentsFamiliaux("Diabète de type 2 (mère)");
+        dossier.setTraitementsEnCours("Amlodipine 5 mg");
+        dossier.setAllergies("Pénicilline");
+        dossier.setObservationsGenerales("Suivi trimestriel");
+    }
+
+    @Benchmark
+    public void exportToPdf() throws Exception {
+        exportService.exportToPDF(patient, dossier, OutputStream.nullOutputStream());
+    }
+
+    public static void main(String[] args) throws Exception {
+        Options options = new OptionsBuilder()
+                .include(ExportPdfBenchmark.class.getSimpleName())
+                .addProfiler(GCProfiler.class)
+                .build();
+        new Runner(options).run();
+    }
+}
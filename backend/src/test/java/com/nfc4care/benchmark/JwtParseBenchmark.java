@@ -0,0 +1,94 @@
+package com.nfc4care.benchmark;
+
+import com.nfc4care.security.ParsedToken;
+import com.nfc4care.service.JwtService;
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.security.Keys;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.security.core.userdetails.User;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+/**
+ * Coût CPU par requête de la lecture du token JWT dans le filtre d'authentification
+ * singleParse : un seul parse avec la clé et le parser construits au démarrage (JwtService.parse)
+ * repeatedExtractClaim : chemin d'origine, extractUsername puis isTokenExpired, chacun reconstruisant
+ * la clé HMAC et le parser et revérifiant la signature (la vérification en base est exclue des deux côtés)
+ * Lancement, depuis backend/ :
+ * mvn -q test-compile dependency:build-classpath -Dmdep.outputFile=target/cp.txt -Dmdep.includeScope=test
+ * java -cp target/test-classes:target/classes:$(cat target/cp.txt) com.nfc4care.benchmark.JwtParseBenchmark
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class JwtParseBenchmark {
+
+    private static final String SECRET = "benchmark-secret-key-for-hmac-sha256-signature-0123456789abcdef";
+
+    private JwtService jwtService;
+    private String token;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        // Aucune vérification de révocation n'est mesurée : les dépendances ne sont pas utilisées
+        jwtService = new JwtService(null, null);
+        ReflectionTestUtils.setField(jwtService, "secretKey", SECRET);
+        ReflectionTestUtils.setField(jwtService, "jwtExpiration", 86_400_000L);
+        ReflectionTestUtils.invokeMethod(jwtService, "init");
+        token = jwtService.generateToken(User.withUsername("medecin@nfc4care.sn").password("x").authorities(List.of()).build());
+    }
+
+    @Benchmark
+    public void singleParse(Blackhole blackhole) {
+        ParsedToken parsed = jwtService.parse(token);
+        blackhole.consume(parsed.getSubject());
+        blackhole.consume(parsed.isExpired());
+    }
+
+    @Benchmark
+    public void repeatedExtractClaim(Blackhole blackhole) {
+        blackhole.consume(extractClaim(token, Claims::getSubject));
+        blackhole.consume(extractClaim(token, Claims::getExpiration).before(new Date()));
+    }
+
+    // Reproduction de l'ancien JwtService.extractClaim : clé et parser reconstruits à chaque appel
+    private static <T> T extractClaim(String token, Function<Claims, T> claimsResolver) {
+        Claims claims = Jwts.parserBuilder()
+                .setSigningKey(Keys.hmacShaKeyFor(SECRET.getBytes()))
+                .build()
+                .parseClaimsJws(token)
+                .getBody();
+        return claimsResolver.apply(claims);
+    }
+
+    public static void main(String[] args) throws Exception {
+        Options options = new OptionsBuilder()
+                .include(JwtParseBenchmark.class.getSimpleName())
+                .addProfiler(GCProfiler.class)
+                .build();
+        new Runner(options).run();
+    }
+}
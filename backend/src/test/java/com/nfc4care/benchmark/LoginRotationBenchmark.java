@@ -0,0 +1,189 @@
+package com.nfc4care.benchmark;
+
+import com.nfc4care.util.HashUtil;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Débit des connexions : rotation de session de TokenService.saveToken (PostgreSQL)
+ * perTokenRevoke : requêtes émises par le chemin d'origine (ensureSingleActiveToken puis saveToken) :
+ * comptage, lecture des tokens actifs, un UPDATE par token, insertion, comptage final
+ * bulkRevoke : un UPDATE ensembliste puis l'insertion
+ * Chaque connexion est une transaction ; avant chacune, l'utilisateur a {@code sessions} tokens actifs.
+ * Lancement, depuis backend/, avec une base accessible via DB_HOST, DB_PORT, DB_NAME, DB_USERNAME, DB_PASSWORD :
+ * mvn -q test-compile dependency:build-classpath -Dmdep.outputFile=target/cp.txt -Dmdep.includeScope=test
+ * java -cp target/test-classes:target/classes:$(cat target/cp.txt) com.nfc4care.benchmark.LoginRotationBenchmark
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class LoginRotationBenchmark {
+
+    private static final int USERS = 1_000;
+    private static final String VALID_TOKENS = "user_email = ? AND revoked = false AND expired = false AND expires_at > ?";
+
+    @Param({"1", "10"})
+    private int sessions;
+
+    private Connection connection;
+    private PreparedStatement resetUser;
+    private PreparedStatement seedSessions;
+    private PreparedStatement countValid;
+    private PreparedStatement findValid;
+    private PreparedStatement revokeById;
+    private PreparedStatement revokeActive;
+    private PreparedStatement insert;
+    private int nextUser;
+    private String userEmail;
+
+    @Setup(Level.Trial)
+    public void setUp() throws SQLException {
+        connection = BenchmarkDatabase.connect();
+        BenchmarkDatabase.execute(connection,
+                "DROP TABLE IF EXISTS bench_login_tokens",
+                "CREATE TABLE bench_login_tokens (id BIGSERIAL PRIMARY KEY, token_value VARCHAR(1000) NOT NULL, "
+                        + "token_hash CHAR(64) NOT NULL, user_email VARCHAR(255) NOT NULL, "
+                        + "created_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP, expires_at TIMESTAMP NOT NULL, "
+                        + "revoked BOOLEAN NOT NULL DEFAULT FALSE, expired BOOLEAN NOT NULL DEFAULT FALSE, "
+                        + "user_agent VARCHAR(500), ip_address VARCHAR(45))",
+                "CREATE UNIQUE INDEX bench_login_tokens_hash ON bench_login_tokens (token_hash)",
+                "CREATE INDEX bench_login_tokens_valid ON bench_login_tokens (user_email, revoked, expired, expires_at)");
+        connection.setAutoCommit(false);
+
+        resetUser = connection.prepareStatement("DELETE FROM bench_login_tokens WHERE user_email = ?");
+        seedSessions = connection.prepareStatement("INSERT INTO bench_login_tokens (token_value, token_hash, user_email, expires_at) "
+                + "SELECT v, encode(sha256(convert_to(v, 'UTF8')), 'hex'), ?, now() + interval '1 day' "
+                + "FROM (SELECT md5(random()::text) || g AS v FROM generate_series(1, ?) g) t");
+        countValid = connection.prepareStatement("SELECT count(*) FROM bench_login_tokens WHERE " + VALID_TOKENS);
+        findValid = connection.prepareStatement("SELECT id FROM bench_login_tokens WHERE " + VALID_TOKENS);
+        // Hibernate réécrit toutes les colonnes de l'entité sauvegardée
+        revokeById = connection.prepareStatement("UPDATE bench_login_tokens SET token_value = token_value, "
+                + "token_hash = token_hash, user_email = user_email, expires_at = expires_at, revoked = true, "
+                + "expired = expired, user_agent = user_agent, ip_address = ip_address WHERE id = ?");
+        revokeActive = connection.prepareStatement("UPDATE bench_login_tokens SET revoked = true WHERE " + VALID_TOKENS);
+        insert = connection.prepareStatement("INSERT INTO bench_login_tokens "
+                + "(token_value, token_hash, user_email, expires_at, revoked, expired, user_agent, ip_address) "
+                + "VALUES (?, ?, ?, ?, false, false, 'JMH', '127.0.0.1')");
+    }
+
+    /**
+     * Remet l'utilisateur suivant à {@code sessions} tokens actifs (hors mesure)
+     */
+    @Setup(Level.Invocation)
+    public void nextLogin() throws SQLException {
+        userEmail = "medecin" + (nextUser++ % USERS) + "@nfc4care.sn";
+        resetUser.setString(1, userEmail);
+        resetUser.executeUpdate();
+        seedSessions.setString(1, userEmail);
+        seedSessions.setInt(2, sessions);
+        seedSessions.executeUpdate();
+        connection.commit();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws SQLException {
+        connection.setAutoCommit(true);
+        BenchmarkDatabase.execute(connection, "DROP TABLE IF EXISTS bench_login_tokens");
+        connection.close();
+    }
+
+    @Benchmark
+    public void perTokenRevoke() throws SQLException {
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        // ensureSingleActiveToken : comptage, puis nettoyage en gardant le plus récent
+        if (countValidTokens(now) > 1) {
+            List<Long> ids = findValidTokenIds(now);
+            for (int i = 1; i < ids.size(); i++) {
+                revokeById(ids.get(i));
+            }
+        }
+        // saveToken : révocation token par token, insertion, comptage pour le log
+        for (Long id : findValidTokenIds(now)) {
+            revokeById(id);
+        }
+        insertToken();
+        countValidTokens(now);
+        connection.commit();
+    }
+
+    @Benchmark
+    public void bulkRevoke() throws SQLException {
+        revokeActive.setString(1, userEmail);
+        revokeActive.setTimestamp(2, Timestamp.valueOf(LocalDateTime.now()));
+        revokeActive.executeUpdate();
+        insertToken();
+        connection.commit();
+    }
+
+    private long countValidTokens(Timestamp now) throws SQLException {
+        countValid.setString(1, userEmail);
+        countValid.setTimestamp(2, now);
+        try (ResultSet resultSet = countValid.executeQuery()) {
+            resultSet.next();
+            return resultSet.getLong(1);
+        }
+    }
+
+    // Du plus récent au plus ancien (identifiants croissants à la création), comme le tri de cleanMultipleTokensForUser
+    private List<Long> findValidTokenIds(Timestamp now) throws SQLException {
+        findValid.setString(1, userEmail);
+        findValid.setTimestamp(2, now);
+        List<Long> ids = new ArrayList<>();
+        try (ResultSet resultSet = findValid.executeQuery()) {
+            while (resultSet.next()) {
+                ids.add(resultSet.getLong(1));
+            }
+        }
+        ids.sort((a, b) -> Long.compare(b, a));
+        return ids;
+    }
+
+    private void revokeById(long id) throws SQLException {
+        revokeById.setLong(1, id);
+        revokeById.executeUpdate();
+    }
+
+    private void insertToken() throws SQLException {
+        String token = "eyJhbGciOiJIUzI1NiJ9." + UUID.randomUUID();
+        insert.setString(1, token);
+        insert.setString(2, HashUtil.generateSHA256Hash(token));
+        insert.setString(3, userEmail);
+        insert.setTimestamp(4, Timestamp.valueOf(LocalDateTime.now().plusDays(1)));
+        insert.executeUpdate();
+    }
+
+    public static void main(String[] args) throws Exception {
+        Options options = new OptionsBuilder()
+                .include(LoginRotationBenchmark.class.getSimpleName())
+                .build();
+        new Runner(options).run();
+    }
+}
@@ -0,0 +1,131 @@
+package com.nfc4care.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Latence (p50/p99) d'une page de recherche de patients sur 500 000 patients (PostgreSQL)
+ * likeOnColumns : requête d'origine, cinq LOWER(colonne) LIKE '%terme%' en OR, plus la requête COUNT de la page
+ * trigramSearchText : search_text LIKE '%terme%' servie par l'index GIN pg_trgm (database/patient_search.sql),
+ * plus la requête COUNT
+ * Les percentiles sont ceux du mode SampleTime (p0.50, p0.99).
+ * Lancement, depuis backend/, avec une base accessible via DB_HOST, DB_PORT, DB_NAME, DB_USERNAME, DB_PASSWORD
+ * (l'extension pg_trgm doit pouvoir être créée) :
+ * mvn -q test-compile dependency:build-classpath -Dmdep.outputFile=target/cp.txt -Dmdep.includeScope=test
+ * java -cp target/test-classes:target/classes:$(cat target/cp.txt) com.nfc4care.benchmark.PatientSearchBenchmark
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SampleTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+public class PatientSearchBenchmark {
+
+    private static final int PATIENTS = 500_000;
+    private static final int PAGE_SIZE = 20;
+
+    private static final String LIKE_ON_COLUMNS = "actif = true AND (lower(nom) LIKE lower('%' || ? || '%') "
+            + "OR lower(prenom) LIKE lower('%' || ? || '%') OR numero_dossier LIKE '%' || ? || '%' "
+            + "OR telephone LIKE '%' || ? || '%' OR lower(email) LIKE lower('%' || ? || '%'))";
+    private static final String TRIGRAM = "actif = true AND search_text LIKE '%' || lower(?) || '%'";
+
+    // Terme fréquent (nom), terme rare (numéro de dossier), fragment de téléphone
+    @Param({"diop", "DOS0424242", "77123"})
+    private String term;
+
+    private Connection connection;
+    private PreparedStatement likePage;
+    private PreparedStatement likeCount;
+    private PreparedStatement trigramPage;
+    private PreparedStatement trigramCount;
+
+    @Setup(Level.Trial)
+    public void setUp() throws SQLException {
+        connection = BenchmarkDatabase.connect();
+        BenchmarkDatabase.execute(connection,
+                "CREATE EXTENSION IF NOT EXISTS pg_trgm",
+                "DROP TABLE IF EXISTS bench_patients",
+                "CREATE TABLE bench_patients (id BIGSERIAL PRIMARY KEY, numero_dossier VARCHAR(255) NOT NULL, "
+                        + "nom VARCHAR(255) NOT NULL, prenom VARCHAR(255) NOT NULL, telephone VARCHAR(255) NOT NULL, "
+                        + "email VARCHAR(255), actif BOOLEAN NOT NULL DEFAULT TRUE, "
+                        + "date_creation TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP)",
+                "INSERT INTO bench_patients (numero_dossier, nom, prenom, telephone, email, actif) "
+                        + "SELECT 'DOS' || lpad(i::text, 7, '0'), "
+                        + "(ARRAY['Diop','Ndiaye','Fall','Sow','Ba','Gueye','Faye','Sarr','Cisse','Mbaye'])[1 + i % 10] || (i % 997), "
+                        + "(ARRAY['Fatou','Awa','Moussa','Ibrahima','Aminata','Cheikh','Mariama','Ousmane'])[1 + i % 8], "
+                        + "'77' || lpad(((i * 7919) % 10000000)::text, 7, '0'), "
+                        + "CASE WHEN i % 3 = 0 THEN NULL ELSE 'patient' || i || '@example.sn' END, "
+                        + "i % 20 <> 0 "
+                        + "FROM generate_series(1, " + PATIENTS + ") i",
+                "ALTER TABLE bench_patients ADD COLUMN search_text TEXT GENERATED ALWAYS AS "
+                        + "(lower(nom || ' ' || prenom || ' ' || numero_dossier || ' ' || telephone || ' ' || coalesce(email, ''))) STORED",
+                "CREATE INDEX bench_patients_search_trgm ON bench_patients USING gin (search_text gin_trgm_ops) WHERE actif = true",
+                "ANALYZE bench_patients");
+
+        likePage = connection.prepareStatement("SELECT * FROM bench_patients WHERE " + LIKE_ON_COLUMNS + " LIMIT " + PAGE_SIZE);
+        likeCount = connection.prepareStatement("SELECT count(*) FROM bench_patients WHERE " + LIKE_ON_COLUMNS);
+        trigramPage = connection.prepareStatement("SELECT * FROM bench_patients WHERE " + TRIGRAM + " LIMIT " + PAGE_SIZE);
+        trigramCount = connection.prepareStatement("SELECT count(*) FROM bench_patients WHERE " + TRIGRAM);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws SQLException {
+        BenchmarkDatabase.execute(connection, "DROP TABLE IF EXISTS bench_patients");
+        connection.close();
+    }
+
+    @Benchmark
+    public void likeOnColumns(Blackhole blackhole) throws SQLException {
+        for (int i = 1; i <= 5; i++) {
+            likePage.setString(i, term);
+            likeCount.setString(i, term);
+        }
+        consume(likePage, blackhole);
+        consume(likeCount, blackhole);
+    }
+
+    @Benchmark
+    public void trigramSearchText(Blackhole blackhole) throws SQLException {
+        trigramPage.setString(1, term);
+        trigramCount.setString(1, term);
+        consume(trigramPage, blackhole);
+        consume(trigramCount, blackhole);
+    }
+
+    private static void consume(PreparedStatement statement, Blackhole blackhole) throws SQLException {
+        try (ResultSet resultSet = statement.executeQuery()) {
+            while (resultSet.next()) {
+                blackhole.consume(resultSet.getLong(1));
+            }
+        }
+    }
+
+    public static void main(String[] args) throws Exception {
+        Options options = new OptionsBuilder()
+                .include(PatientSearchBenchmark.class.getSimpleName())
+                .build();
+        new Runner(options).run();
+    }
+}
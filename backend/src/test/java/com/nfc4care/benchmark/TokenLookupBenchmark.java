@@ -0,0 +1,123 @@
+package com.nfc4care.benchmark;
+
+import com.nfc4care.util.HashUtil;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Recherche d'un token par requête sur une table d'un million de lignes (PostgreSQL)
+ * byTokenValue : index unique sur le JWT complet (schéma d'origine)
+ * byTokenHash : index unique sur l'empreinte SHA-256, calcul de l'empreinte inclus
+ * La taille des deux index est affichée à la préparation.
+ * Lancement, depuis backend/, avec une base accessible via DB_HOST, DB_PORT, DB_NAME, DB_USERNAME, DB_PASSWORD :
+ * mvn -q test-compile dependency:build-classpath -Dmdep.outputFile=target/cp.txt -Dmdep.includeScope=test
+ * java -cp target/test-classes:target/classes:$(cat target/cp.txt) com.nfc4care.benchmark.TokenLookupBenchmark
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class TokenLookupBenchmark {
+
+    private static final int ROWS = 1_000_000;
+    private static final int SAMPLE = 10_000;
+
+    private Connection connection;
+    private PreparedStatement byValue;
+    private PreparedStatement byHash;
+    private String[] tokens;
+
+    @Setup(Level.Trial)
+    public void setUp() throws SQLException {
+        connection = BenchmarkDatabase.connect();
+        // Les JWT partagent leur en-tête : la comparaison des clés de l'index porte sur plusieurs centaines d'octets
+        BenchmarkDatabase.execute(connection,
+                "DROP TABLE IF EXISTS bench_tokens",
+                "CREATE TABLE bench_tokens (id BIGSERIAL PRIMARY KEY, token_value VARCHAR(1000) NOT NULL, token_hash CHAR(64) NOT NULL)",
+                "INSERT INTO bench_tokens (token_value, token_hash) "
+                        + "SELECT v, encode(sha256(convert_to(v, 'UTF8')), 'hex') FROM ("
+                        + "SELECT 'eyJhbGciOiJIUzI1NiJ9.' || repeat(md5(i::text), 6) || '.' || md5((i * 7)::text) AS v "
+                        + "FROM generate_series(1, " + ROWS + ") i) t",
+                "CREATE UNIQUE INDEX bench_tokens_value ON bench_tokens (token_value)",
+                "CREATE UNIQUE INDEX bench_tokens_hash ON bench_tokens (token_hash)",
+                "ANALYZE bench_tokens");
+
+        try (Statement statement = connection.createStatement();
+             ResultSet sizes = statement.executeQuery("SELECT pg_size_pretty(pg_relation_size('bench_tokens_value')), "
+                     + "pg_size_pretty(pg_relation_size('bench_tokens_hash'))")) {
+            sizes.next();
+            System.out.printf("Index token_value: %s, index token_hash: %s%n", sizes.getString(1), sizes.getString(2));
+        }
+
+        tokens = new String[SAMPLE];
+        try (Statement statement = connection.createStatement();
+             ResultSet sample = statement.executeQuery("SELECT token_value FROM bench_tokens ORDER BY random() LIMIT " + SAMPLE)) {
+            for (int i = 0; sample.next(); i++) {
+                tokens[i] = sample.getString(1);
+            }
+        }
+        byValue = connection.prepareStatement("SELECT id FROM bench_tokens WHERE token_value = ?");
+        byHash = connection.prepareStatement("SELECT id FROM bench_tokens WHERE token_hash = ?");
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws SQLException {
+        BenchmarkDatabase.execute(connection, "DROP TABLE IF EXISTS bench_tokens");
+        connection.close();
+    }
+
+    @Benchmark
+    public long byTokenValue() throws SQLException {
+        byValue.setString(1, randomToken());
+        return firstId(byValue);
+    }
+
+    @Benchmark
+    public long byTokenHash() throws SQLException {
+        byHash.setString(1, HashUtil.generateSHA256Hash(randomToken()));
+        return firstId(byHash);
+    }
+
+    private String randomToken() {
+        return tokens[ThreadLocalRandom.current().nextInt(SAMPLE)];
+    }
+
+    private static long firstId(PreparedStatement statement) throws SQLException {
+        try (ResultSet resultSet = statement.executeQuery()) {
+            if (!resultSet.next()) {
+                throw new IllegalStateException("Token introuvable");
+            }
+            return resultSet.getLong(1);
+        }
+    }
+
+    public static void main(String[] args) throws Exception {
+        Options options = new OptionsBuilder()
+                .include(TokenLookupBenchmark.class.getSimpleName())
+                .build();
+        new Runner(options).run();
+    }
+}
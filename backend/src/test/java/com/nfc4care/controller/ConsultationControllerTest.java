@@ -0,0 +1,60 @@
+package com.nfc4care.controller;
+
+import com.nfc4care.exception.GlobalExceptionHandler;
+import com.nfc4care.service.ConsultationService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+
+import java.util.List;
+
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@ExtendWith(MockitoExtension.class)
+class ConsultationControllerTest {
+
+    @Mock
+    private ConsultationService consultationService;
+
+    private MockMvc mockMvc;
+
+    @BeforeEach
+    void setUp() {
+        mockMvc = MockMvcBuilders.standaloneSetup(new ConsultationController(consultationService))
+                .setControllerAdvice(new GlobalExceptionHandler())
+                .build();
+    }
+
+    @Test
+    void getConsultations_patientId_returnsPatientList() throws Exception {
+        when(consultationService.getConsultationsByPatientId(42L)).thenReturn(List.of());
+
+        mockMvc.perform(get("/consultations").param("patientId", "42"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$").isArray());
+    }
+
+    @Test
+    void getConsultations_blankPatientId_isBadRequest() throws Exception {
+        mockMvc.perform(get("/consultations").param("patientId", ""))
+                .andExpect(status().isBadRequest());
+
+        verifyNoInteractions(consultationService);
+    }
+
+    @Test
+    void getConsultations_nonNumericPatientId_isBadRequest() throws Exception {
+        mockMvc.perform(get("/consultations").param("patientId", "abc"))
+                .andExpect(status().isBadRequest());
+
+        verifyNoInteractions(consultationService);
+    }
+}
@@ -0,0 +1,171 @@
+package com.nfc4care.repository;
+
+import com.nfc4care.entity.Consultation;
+import com.nfc4care.entity.DossierMedical;
+import com.nfc4care.entity.Patient;
+import com.nfc4care.entity.Professionnel;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.SpringBootConfiguration;
+import org.springframework.boot.autoconfigure.domain.EntityScan;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.jpa.repository.config.EnableJpaRepositories;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.function.Supplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Le nombre de requêtes des lectures de consultations avec graphe d'entités
+ * ne dépend pas du nombre de consultations renvoyées (pas de N+1)
+ */
+@DataJpaTest(properties = {
+        "spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect",
+        "spring.jpa.properties.hibernate.generate_statistics=true",
+        "spring.jpa.mapping-resources=META-INF/orm-h2.xml"
+})
+class ConsultationRepositoryQueryCountTest {
+
+    private static final int SMALL = 2;
+    private static final int LARGE = 20;
+
+    @SpringBootConfiguration
+    @EntityScan("com.nfc4care.entity")
+    @EnableJpaRepositories("com.nfc4care.repository")
+    static class JpaTestConfiguration {
+    }
+
+    @Autowired
+    private TestEntityManager entityManager;
+
+    @Autowired
+    private ConsultationRepository consultationRepository;
+
+    @Autowired
+    private SessionFactory sessionFactory;
+
+    private Statistics statistics;
+    private int sequence;
+
+    @BeforeEach
+    void setUp() {
+        statistics = sessionFactory.getStatistics();
+    }
+
+    @Test
+    void findFirstKeyset_queryCountIsConstant() {
+        assertConstantQueryCount(
+                () -> consultationRepository.findFirstKeyset(PageRequest.of(0, SMALL)),
+                () -> consultationRepository.findFirstKeyset(PageRequest.of(0, LARGE)));
+    }
+
+    @Test
+    void findKeysetAfter_queryCountIsConstant() {
+        LocalDateTime after = LocalDateTime.now().plusDays(1);
+        assertConstantQueryCount(
+                () -> consultationRepository.findKeysetAfter(after, Long.MAX_VALUE, PageRequest.of(0, SMALL)),
+                () -> consultationRepository.findKeysetAfter(after, Long.MAX_VALUE, PageRequest.of(0, LARGE)));
+    }
+
+    @Test
+    void findByPatientId_queryCountIsConstant() {
+        Professionnel professionnel = professionnel();
+        DossierMedical smallDossier = dossier(professionnel);
+        DossierMedical largeDossier = dossier(professionnel);
+        for (int i = 0; i < SMALL; i++) {
+            consultation(smallDossier, professionnel());
+        }
+        for (int i = 0; i < LARGE; i++) {
+            consultation(largeDossier, professionnel());
+        }
+        Long smallPatientId = smallDossier.getPatient().getId();
+        Long largePatientId = largeDossier.getPatient().getId();
+
+        long smallCount = countStatements(() -> consultationRepository.findByPatientIdOrderByDateConsultationDesc(smallPatientId), SMALL);
+        long largeCount = countStatements(() -> consultationRepository.findByPatientIdOrderByDateConsultationDesc(largePatientId), LARGE);
+
+        assertThat(largeCount).isEqualTo(smallCount).isEqualTo(1);
+    }
+
+    private void assertConstantQueryCount(Supplier<List<Consultation>> smallQuery, Supplier<List<Consultation>> largeQuery) {
+        // Chaque consultation a son propre patient et son propre professionnel
+        for (int i = 0; i < LARGE; i++) {
+            consultation(dossier(professionnel()), professionnel());
+        }
+
+        long smallCount = countStatements(smallQuery, SMALL);
+        long largeCount = countStatements(largeQuery, LARGE);
+
+        assertThat(largeCount).isEqualTo(smallCount).isEqualTo(1);
+    }
+
+    private long countStatements(Supplier<List<Consultation>> query, int expectedSize) {
+        entityManager.flush();
+        entityManager.clear();
+        statistics.clear();
+
+        List<Consultation> consultations = query.get();
+        // Parcours des associations utilisées par ConsultationService.toDto
+        consultations.forEach(consultation -> {
+            consultation.getDossierMedical().getPatient().getNom();
+            consultation.getProfessionnel().getNom();
+        });
+
+        assertThat(consultations).hasSize(expectedSize);
+        return statistics.getPrepareStatementCount();
+    }
+
+    private Professionnel professionnel() {
+        int n = ++sequence;
+        return entityManager.persist(Professionnel.builder()
+                .email("medecin" + n + "@nfc4care.sn")
+                .password("secret")
+                .nom("Diop" + n)
+                .prenom("Awa")
+                .specialite("Médecine générale")
+                .numeroRPPS("RPPS" + n)
+                .role(Professionnel.Role.MEDECIN)
+                .dateCreation(LocalDateTime.now())
+                .actif(true)
+                .build());
+    }
+
+    private DossierMedical dossier(Professionnel professionnel) {
+        int n = ++sequence;
+        Patient patient = new Patient();
+        patient.setNumeroDossier("DOS" + n);
+        patient.setNom("Ndiaye" + n);
+        patient.setPrenom("Moussa");
+        patient.setDateNaissance(LocalDate.of(1980, 1, 1));
+        patient.setSexe("M");
+        patient.setAdresse("Dakar");
+        patient.setTelephone("77000" + n);
+        patient.setNumeroSecuriteSociale("NSS" + n);
+        entityManager.persist(patient);
+
+        DossierMedical dossier = new DossierMedical();
+        dossier.setPatient(patient);
+        dossier.setHashContenu("hash" + n);
+        dossier.setProfessionnelCreation(professionnel);
+        return entityManager.persist(dossier);
+    }
+
+    private void consultation(DossierMedical dossier, Professionnel professionnel) {
+        int n = ++sequence;
+        Consultation consultation = new Consultation();
+        consultation.setDossierMedical(dossier);
+        consultation.setProfessionnel(professionnel);
+        consultation.setDateConsultation(LocalDateTime.now().minusHours(n));
+        consultation.setMotifConsultation("Contrôle " + n);
+        consultation.setHashContenu("hash" + n);
+        entityManager.persist(consultation);
+    }
+}
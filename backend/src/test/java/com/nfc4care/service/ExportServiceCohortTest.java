@@ -0,0 +1,134 @@
+package com.nfc4care.service;
+
+import com.nfc4care.entity.Consultation;
+import com.nfc4care.entity.DossierMedical;
+import com.nfc4care.entity.Patient;
+import com.nfc4care.entity.Professionnel;
+import com.nfc4care.repository.ConsultationRepository;
+import com.nfc4care.repository.ProfessionnelRepository;
+import jakarta.persistence.EntityManager;
+import org.apache.poi.openxml4j.opc.OPCPackage;
+import org.apache.poi.xssf.eventusermodel.XSSFReader;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.xml.sax.Attributes;
+import org.xml.sax.helpers.DefaultHandler;
+
+import javax.xml.parsers.SAXParserFactory;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.InputStream;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class ExportServiceCohortTest {
+
+    private static final int PATIENTS = 200;
+    private static final int CONSULTATIONS_PER_PATIENT = 5;
+    private static final LocalDate FROM = LocalDate.of(2024, 1, 1);
+    private static final LocalDate TO = LocalDate.of(2024, 12, 31);
+
+    @Mock
+    private ConsultationRepository consultationRepository;
+
+    @Mock
+    private ProfessionnelRepository professionnelRepository;
+
+    @Mock
+    private EntityManager entityManager;
+
+    @InjectMocks
+    private ExportService exportService;
+
+    @Test
+    void exportCohortToExcel_writesOneRowPerPatientAndConsultation() throws Exception {
+        Professionnel professionnel = Professionnel.builder().id(1L).email("medecin@nfc4care.sn").build();
+        when(consultationRepository.streamByProfessionnelAndPeriod(eq(1L), any(), any()))
+                .thenReturn(generatedCohort(professionnel));
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        exportService.exportCohortToExcel(professionnel, FROM, TO, out);
+
+        Map<String, Integer> rows = countRowsPerSheet(out.toByteArray());
+
+        // Une ligne d'en-tête par feuille
+        assertThat(rows).containsEntry("Patients", PATIENTS + 1)
+                .containsEntry("Consultations", PATIENTS * CONSULTATIONS_PER_PATIENT + 1);
+    }
+
+    @Test
+    void exportCohortToExcel_fromAfterTo_isRejected() {
+        Professionnel professionnel = Professionnel.builder().id(1L).build();
+
+        assertThatThrownBy(() -> exportService.exportCohortToExcel(professionnel, TO, FROM, new ByteArrayOutputStream()))
+                .isInstanceOf(IllegalArgumentException.class);
+        verifyNoInteractions(consultationRepository);
+    }
+
+    // Consultations générées à la demande, triées par patient comme la requête de cohorte
+    private static Stream<Consultation> generatedCohort(Professionnel professionnel) {
+        return IntStream.range(0, PATIENTS).boxed().flatMap(p -> {
+            Patient patient = new Patient();
+            patient.setId((long) p + 1);
+            patient.setNumeroDossier("DOS" + p);
+            patient.setNom("Ndiaye" + p);
+            patient.setPrenom("Fatou");
+            patient.setDateNaissance(LocalDate.of(1970 + p % 50, 1 + p % 12, 1 + p % 28));
+            patient.setSexe(p % 2 == 0 ? "F" : "M");
+            patient.setTelephone("77" + p);
+            patient.setNumeroSecuriteSociale("NSS" + p);
+            DossierMedical dossier = new DossierMedical();
+            dossier.setPatient(patient);
+            return IntStream.range(0, CONSULTATIONS_PER_PATIENT).mapToObj(c -> {
+                Consultation consultation = new Consultation();
+                consultation.setDossierMedical(dossier);
+                consultation.setProfessionnel(professionnel);
+                consultation.setDateConsultation(LocalDateTime.of(2024, 1 + c, 10, 9, 30));
+                consultation.setMotifConsultation("Contrôle tensionnel");
+                consultation.setDiagnostic("Hypertension artérielle stade " + (c % 3 + 1));
+                consultation.setTraitementPrescrit("Amlodipine 5 mg");
+                return consultation;
+            });
+        });
+    }
+
+    // Lecture SAX des feuilles : le classeur n'est jamais chargé entièrement en mémoire
+    private static Map<String, Integer> countRowsPerSheet(byte[] workbook) throws Exception {
+        Map<String, Integer> rows = new LinkedHashMap<>();
+        SAXParserFactory factory = SAXParserFactory.newInstance();
+        factory.setNamespaceAware(true);
+        try (OPCPackage pkg = OPCPackage.open(new ByteArrayInputStream(workbook))) {
+            XSSFReader.SheetIterator sheets = (XSSFReader.SheetIterator) new XSSFReader(pkg).getSheetsData();
+            while (sheets.hasNext()) {
+                try (InputStream sheet = sheets.next()) {
+                    int[] count = {0};
+                    factory.newSAXParser().parse(sheet, new DefaultHandler() {
+                        @Override
+                        public void startElement(String uri, String localName, String qName, Attributes attributes) {
+                            if ("row".equals(localName)) {
+                                count[0]++;
+                            }
+                        }
+                    });
+                    rows.put(sheets.getSheetName(), count[0]);
+                }
+            }
+        }
+        return rows;
+    }
+}
@@ -0,0 +1,96 @@
+package com.nfc4care.service;
+
+import com.itextpdf.text.pdf.PdfReader;
+import com.nfc4care.dto.ConsultationSummaryRow;
+import com.nfc4care.entity.Patient;
+import com.nfc4care.repository.ConsultationRepository;
+import com.nfc4care.repository.ProfessionnelRepository;
+import jakarta.persistence.EntityManager;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.domain.Pageable;
+
+import java.io.ByteArrayOutputStream;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoMoreInteractions;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class ExportServicePdfTest {
+
+    private static final LocalDateTime FIRST = LocalDateTime.of(2024, 6, 1, 9, 0);
+
+    @Mock
+    private ConsultationRepository consultationRepository;
+
+    @Mock
+    private ProfessionnelRepository professionnelRepository;
+
+    @Mock
+    private EntityManager entityManager;
+
+    @InjectMocks
+    private ExportService exportService;
+
+    @Test
+    void exportToPDF_longHistory_isReadPageByPage() throws Exception {
+        int pageSize = ExportService.PDF_HISTORY_PAGE_SIZE;
+        List<ConsultationSummaryRow> firstPage = rows(0, pageSize);
+        ConsultationSummaryRow last = firstPage.get(pageSize - 1);
+        when(consultationRepository.findPatientSummaries(eq(1L), any(Pageable.class))).thenReturn(firstPage);
+        when(consultationRepository.findPatientSummariesAfter(eq(1L), eq(last.dateConsultation()), eq(last.id()), any(Pageable.class)))
+                .thenReturn(rows(pageSize, 3));
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        exportService.exportToPDF(patient(), null, out);
+
+        // Une page pleine, puis une page partielle qui termine l'historique
+        verify(consultationRepository).findPatientSummaries(eq(1L), any(Pageable.class));
+        verify(consultationRepository).findPatientSummariesAfter(eq(1L), any(), any(), any(Pageable.class));
+        verifyNoMoreInteractions(consultationRepository);
+        assertThat(new PdfReader(out.toByteArray()).getNumberOfPages()).isGreaterThan(1);
+    }
+
+    @Test
+    void exportToPDF_noHistory_issuesOneQuery() throws Exception {
+        when(consultationRepository.findPatientSummaries(eq(1L), any(Pageable.class))).thenReturn(List.of());
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        exportService.exportToPDF(patient(), null, out);
+
+        verify(consultationRepository).findPatientSummaries(eq(1L), any(Pageable.class));
+        verifyNoMoreInteractions(consultationRepository);
+        assertThat(new PdfReader(out.toByteArray()).getNumberOfPages()).isEqualTo(1);
+    }
+
+    // Plus récentes d'abord, comme la requête keyset
+    private static List<ConsultationSummaryRow> rows(int offset, int count) {
+        return IntStream.range(offset, offset + count)
+                .mapToObj(i -> new ConsultationSummaryRow((long) (100_000 - i), FIRST.minusHours(i),
+                        "Contrôle tensionnel", "Hypertension artérielle", 1L, "Ndiaye", "Fatou", "DOS-0001",
+                        1L, "Diop", "Awa", "Cardiologie"))
+                .toList();
+    }
+
+    private static Patient patient() {
+        Patient patient = new Patient();
+        patient.setId(1L);
+        patient.setNumeroDossier("DOS-0001");
+        patient.setNom("Ndiaye");
+        patient.setPrenom("Fatou");
+        patient.setDateNaissance(LocalDate.of(1975, 4, 12));
+        patient.setSexe("F");
+        return patient;
+    }
+}
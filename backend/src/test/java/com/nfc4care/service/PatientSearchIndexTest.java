@@ -0,0 +1,74 @@
+package com.nfc4care.service;
+
+import com.nfc4care.entity.Patient;
+import com.nfc4care.repository.PatientRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+
+import java.time.LocalDate;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+@ExtendWith(MockitoExtension.class)
+class PatientSearchIndexTest {
+
+    @Mock
+    private PatientRepository patientRepository;
+
+    private PatientSearchIndex index;
+
+    @BeforeEach
+    void setUp() {
+        index = new PatientSearchIndex(patientRepository, new SimpleMeterRegistry(), true, 100);
+        index.upsert(patient(1L, "ndiaye", "Fatou", LocalDate.of(1980, 1, 1)));
+        index.upsert(patient(2L, "Diop", "Awa", null));
+        index.upsert(patient(3L, "Ba", "Moussa", LocalDate.of(1975, 6, 15)));
+        index.upsert(patient(4L, "diop", "Cheikh", LocalDate.of(1990, 3, 2)));
+    }
+
+    @Test
+    void search_sortedIgnoringCase_thenById() {
+        Sort sort = Sort.by(Sort.Order.asc("nom").ignoreCase(), Sort.Order.desc("id"));
+
+        assertThat(ids(sort)).containsExactly(3L, 4L, 2L, 1L);
+    }
+
+    @Test
+    void search_nullsOrderedLikePostgres() {
+        // NULL plus grand que toute valeur : en fin de tri croissant, en tête de tri décroissant
+        assertThat(ids(Sort.by(Sort.Order.asc("dateNaissance")))).containsExactly(3L, 1L, 4L, 2L);
+        assertThat(ids(Sort.by(Sort.Order.desc("dateNaissance")))).containsExactly(2L, 4L, 1L, 3L);
+        assertThat(ids(Sort.by(Sort.Order.asc("dateNaissance").nullsFirst()))).containsExactly(2L, 3L, 1L, 4L);
+    }
+
+    @Test
+    void search_unknownSortProperty_isRejected() {
+        assertThatThrownBy(() -> ids(Sort.by("inconnu")))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    private List<Long> ids(Sort sort) {
+        return index.search("", PageRequest.of(0, 10, sort)).getContent().stream()
+                .map(Patient::getId)
+                .toList();
+    }
+
+    private static Patient patient(Long id, String nom, String prenom, LocalDate dateNaissance) {
+        Patient patient = new Patient();
+        patient.setId(id);
+        patient.setNumeroDossier("DOS" + id);
+        patient.setNom(nom);
+        patient.setPrenom(prenom);
+        patient.setDateNaissance(dateNaissance);
+        patient.setTelephone("77000000" + id);
+        return patient;
+    }
+}
@@ -0,0 +1,70 @@
+package com.nfc4care.service;
+
+import com.nfc4care.repository.ProfessionnelRepository;
+import com.nfc4care.repository.RevokedTokenRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class TokenRevocationRegistryTest {
+
+    private static final String USER_EMAIL = "medecin@nfc4care.sn";
+
+    @Mock
+    private RevokedTokenRepository revokedTokenRepository;
+
+    @Mock
+    private ProfessionnelRepository professionnelRepository;
+
+    @Mock
+    private TokenRevocationEventBus revocationEventBus;
+
+    private TokenRevocationRegistry registry;
+
+    @BeforeEach
+    void setUp() {
+        registry = new TokenRevocationRegistry(revokedTokenRepository, professionnelRepository,
+                revocationEventBus, "stateless");
+    }
+
+    @Test
+    void isValid_tokenMintedOnAnotherNodeAfterLogoutAll_isAcceptedAndRevokesOlderGeneration() {
+        // Génération 3 connue de cette instance, puis révocation globale sur une autre instance (génération 4)
+        when(professionnelRepository.findTokenGenerationByEmail(USER_EMAIL))
+                .thenReturn(Optional.of(3L), Optional.of(4L));
+        assertThat(registry.isValid("jti-old", USER_EMAIL, 3L)).isTrue();
+
+        // Aucune notification reçue : le token de génération 4 force une relecture
+        assertThat(registry.isValid("jti-new", USER_EMAIL, 4L)).isTrue();
+        assertThat(registry.isValid("jti-old", USER_EMAIL, 3L)).isFalse();
+        assertThat(registry.currentGeneration(USER_EMAIL)).isEqualTo(4L);
+        verify(professionnelRepository, times(2)).findTokenGenerationByEmail(USER_EMAIL);
+    }
+
+    @Test
+    void isValid_olderGeneration_isRejectedWithoutReadingTheDatabaseAgain() {
+        when(professionnelRepository.findTokenGenerationByEmail(USER_EMAIL)).thenReturn(Optional.of(5L));
+
+        assertThat(registry.isValid("jti-1", USER_EMAIL, 4L)).isFalse();
+        assertThat(registry.isValid("jti-2", USER_EMAIL, 4L)).isFalse();
+        verify(professionnelRepository, times(1)).findTokenGenerationByEmail(USER_EMAIL);
+    }
+
+    @Test
+    void isValid_generationAheadOfDatabase_isRejected() {
+        when(professionnelRepository.findTokenGenerationByEmail(USER_EMAIL)).thenReturn(Optional.of(2L));
+
+        assertThat(registry.isValid("jti-1", USER_EMAIL, 7L)).isFalse();
+        assertThat(registry.currentGeneration(USER_EMAIL)).isEqualTo(2L);
+    }
+}
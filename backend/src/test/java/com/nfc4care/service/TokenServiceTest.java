@@ -0,0 +1,94 @@
+package com.nfc4care.service;
+
+import com.nfc4care.entity.Token;
+import com.nfc4care.repository.TokenRepository;
+import com.nfc4care.util.HashUtil;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.time.LocalDateTime;
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.verifyNoMoreInteractions;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class TokenServiceTest {
+
+    private static final String TOKEN_VALUE = "eyJhbGciOiJIUzI1NiJ9.test-token.signature";
+    private static final String USER_EMAIL = "medecin@nfc4care.sn";
+
+    @Mock
+    private TokenRepository tokenRepository;
+
+    @Mock
+    private TokenRevocationEventBus revocationEventBus;
+
+    private TokenValidationCache tokenValidationCache;
+    private TokenService tokenService;
+
+    @BeforeEach
+    void setUp() {
+        SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+        tokenValidationCache = new TokenValidationCache(100, 300, meterRegistry);
+        tokenService = new TokenService(tokenRepository, tokenValidationCache, revocationEventBus,
+                meterRegistry, 1000, 5000, false);
+    }
+
+    @Test
+    void isTokenValid_expiredToken_issuesNoWrite() {
+        String tokenHash = HashUtil.generateSHA256Hash(TOKEN_VALUE);
+        when(tokenRepository.findByTokenHash(tokenHash))
+                .thenReturn(Optional.of(token(LocalDateTime.now().minusMinutes(5))));
+
+        assertThat(tokenService.isTokenValid(TOKEN_VALUE)).isFalse();
+
+        // Une seule lecture, aucune sauvegarde, suppression ni mise à jour
+        verify(tokenRepository, times(1)).findByTokenHash(tokenHash);
+        verify(tokenRepository, never()).save(any());
+        verify(tokenRepository, never()).delete(any());
+        verify(tokenRepository, never()).markExpiredTokensBatch(any(), anyInt());
+        verify(tokenRepository, never()).revokeActiveUserTokens(anyString(), any());
+        verifyNoMoreInteractions(tokenRepository);
+        verifyNoInteractions(revocationEventBus);
+        assertThat(tokenValidationCache.isCachedValid(tokenHash)).isFalse();
+    }
+
+    @Test
+    void isTokenValid_validToken_isServedFromCacheAfterFirstRead() {
+        String tokenHash = HashUtil.generateSHA256Hash(TOKEN_VALUE);
+        when(tokenRepository.findByTokenHash(tokenHash))
+                .thenReturn(Optional.of(token(LocalDateTime.now().plusHours(1))));
+
+        assertThat(tokenService.isTokenValid(TOKEN_VALUE)).isTrue();
+        assertThat(tokenService.isTokenValid(TOKEN_VALUE)).isTrue();
+
+        verify(tokenRepository, times(1)).findByTokenHash(tokenHash);
+        verifyNoMoreInteractions(tokenRepository);
+    }
+
+    private Token token(LocalDateTime expiresAt) {
+        return Token.builder()
+                .id(1L)
+                .tokenValue(TOKEN_VALUE)
+                .tokenHash(HashUtil.generateSHA256Hash(TOKEN_VALUE))
+                .userEmail(USER_EMAIL)
+                .createdAt(expiresAt.minusHours(24))
+                .expiresAt(expiresAt)
+                .revoked(false)
+                .expired(false)
+                .build();
+    }
+}
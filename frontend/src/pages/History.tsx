@@ -1,4 +1,4 @@
-import React, { useState, useEffect } from 'react';
+import React, { useState, useEffect, useCallback } from 'react';
 import { useNavigate } from 'react-router-dom';
 import { Calendar, Clock, User, FileText, UserCheck } from 'lucide-react';
 import { apiService } from '../services/api';
@@ -18,32 +18,49 @@ interface ConsultationWithPatient extends Consultation {
   };
 }
 
+const PAGE_SIZE = 50;
+
 const History: React.FC = () => {
   const [consultations, setConsultations] = useState<ConsultationWithPatient[]>([]);
   const [loading, setLoading] = useState(true);
+  const [loadingMore, setLoadingMore] = useState(false);
+  const [nextCursor, setNextCursor] = useState<string | undefined>();
   const navigate = useNavigate();
   const { handleApiError } = useErrorHandler();
 
+  // Charge une page de consultations (la première si aucun curseur)
+  const fetchPage = useCallback(async (cursor?: string) => {
+    try {
+      const response = await apiService.getConsultationsPage(cursor, PAGE_SIZE);
+      
+      if (response.success && response.data) {
+        const page = response.data;
+        setConsultations(previous => cursor ? [...previous, ...page.content] : page.content);
+        setNextCursor(page.hasNext ? page.nextCursor : undefined);
+      } else {
+        handleApiError(response.error || 'Erreur lors du chargement des consultations');
+      }
+    } catch (error) {
+      handleApiError(error, 'Erreur lors du chargement des consultations');
+    }
+  }, [handleApiError]);
+
   useEffect(() => {
     const fetchConsultations = async () => {
-      try {
-        setLoading(true);
-        const response = await apiService.getConsultations();
-        
-        if (response.success && response.data) {
-          setConsultations(response.data);
-        } else {
-          handleApiError(response.error || 'Erreur lors du chargement des consultations');
-        }
-      } catch (error) {
-        handleApiError(error, 'Erreur lors du chargement des consultations');
-      } finally {
-        setLoading(false);
-      }
+      setLoading(true);
+      await fetchPage();
+      setLoading(false);
     };
 
     fetchConsultations();
-  }, [handleApiError]);
+  }, [fetchPage]);
+
+  const loadMore = async () => {
+    if (!nextCursor || loadingMore) return;
+    setLoadingMore(true);
+    await fetchPage(nextCursor);
+    setLoadingMore(false);
+  };
 
   // Grouper les consultations par date
   const groupByDate = (entries: ConsultationWithPatient[]) => {
@@ -254,6 +271,18 @@ const History: React.FC = () => {
                 </div>
               ))}
             </div>
+
+            {nextCursor && (
+              <div className="px-4 py-4 sm:px-6 border-t border-gray-200 text-center">
+                <button
+                  onClick={loadMore}
+                  disabled={loadingMore}
+                  className="text-sm font-medium text-blue-600 hover:text-blue-500 disabled:text-gray-400"
+                >
+                  {loadingMore ? 'Chargement...' : 'Charger plus de consultations'}
+                </button>
+              </div>
+            )}
           </div>
         )}
       </div>
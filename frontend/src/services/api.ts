@@ -6,6 +6,13 @@ export interface ApiResponse<T> {
   success: boolean;
 }
 
+export interface CursorPage<T> {
+  content: T[];
+  pageSize: number;
+  hasNext: boolean;
+  nextCursor?: string;
+}
+
 class ApiService {
   private getAuthHeaders(): HeadersInit {
     const token = localStorage.getItem('authToken');
@@ -251,11 +258,17 @@ class ApiService {
   }
 
   // Consultations
-  async getConsultations(patientId?: string): Promise<ApiResponse<any[]>> {
-    const url = patientId 
-      ? `${API_BASE_URL}/consultations?patientId=${patientId}`
-      : `${API_BASE_URL}/consultations`;
-    return this.makeRequest(url);
+  async getConsultations(patientId: string): Promise<ApiResponse<any[]>> {
+    return this.makeRequest(`${API_BASE_URL}/consultations?patientId=${patientId}`);
+  }
+
+  // Toutes les consultations, une page à la fois (plus récentes d'abord)
+  async getConsultationsPage(cursor?: string, size = 50): Promise<ApiResponse<CursorPage<any>>> {
+    const params = new URLSearchParams({ size: String(size) });
+    if (cursor) {
+      params.set('cursor', cursor);
+    }
+    return this.makeRequest(`${API_BASE_URL}/consultations/cursor?${params.toString()}`);
   }
 
   async createConsultation(consultationData: any): Promise<ApiResponse<any>> {